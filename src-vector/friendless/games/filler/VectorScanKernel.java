@@ -0,0 +1,111 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+import java.util.*;
+import jdk.incubator.vector.*;
+
+/**
+ * Board scans done with the Vector API, as many hexes at a time as the
+ * processor's widest vectors hold. Histograms are made by going over the
+ * board once for each type or colour, comparing a vector of hexes at a time
+ * and counting the lanes which match. The board is small enough to stay in
+ * the cache while that is done. The hexes left over after the last whole
+ * vector are done one at a time.
+ * <P>
+ * The Vector API is still an incubator module, so this class is kept in
+ * its own source tree, src-vector, which is only compiled when asked for,
+ * after the rest of the program, and has to be compiled and run with the
+ * module added:
+ * <PRE>
+ *   javac --add-modules jdk.incubator.vector -cp classes -d classes src-vector/friendless/games/filler/*.java
+ *   java --add-modules jdk.incubator.vector -Dfiller.scan=vector ...
+ * </PRE>
+ * If the class or the module isn't there when the program runs, ScanKernel
+ * says so and uses the unrolled loops instead.
+ *
+ * @author John Farrell
+ */
+public class VectorScanKernel extends ScanKernel {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final IntVector ZERO = IntVector.zero(SPECIES);
+
+    public String getName() { return "vector/" + SPECIES.length(); }
+
+    public void typeCounts(int[] counted, int[] counts) {
+        int n = SPECIES.loopBound(counted.length);
+        for (int t=0; t<counts.length; t++) {
+            int sum = 0;
+            for (int i=0; i<n; i+=SPECIES.length()) sum += IntVector.fromArray(SPECIES, counted, i).eq(t).trueCount();
+            counts[t] = sum;
+        }
+        for (int i=n; i<counted.length; i++) counts[counted[i]]++;
+    }
+
+    public void colourCounts(int[] counted, int[] pieces, int types, int[] counts) {
+        // the hexes of the types counted are picked out again for each colour,
+        // rather than being kept, as a kernel has nowhere to keep them
+        IntVector ts = IntVector.broadcast(SPECIES, types);
+        int n = SPECIES.loopBound(counted.length);
+        for (int c=0; c<counts.length; c++) {
+            int sum = 0;
+            for (int i=0; i<n; i+=SPECIES.length()) {
+                IntVector bit = ts.lanewise(VectorOperators.LSHR, IntVector.fromArray(SPECIES, counted, i)).and(1);
+                VectorMask<Integer> colour = IntVector.fromArray(SPECIES, pieces, i).eq(c);
+                sum += bit.compare(VectorOperators.NE, 0).and(colour).trueCount();
+            }
+            counts[c] = sum;
+        }
+        for (int i=n; i<counted.length; i++) {
+            if ((types & (1 << counted[i])) != 0) counts[pieces[i]]++;
+        }
+    }
+
+    public int colourSet(int[] counted, int[] pieces, int types) {
+        // as in the unrolled loops, a hex off the board is never selected,
+        // so its colour of -1 shifts 0 and does no harm
+        IntVector ts = IntVector.broadcast(SPECIES, types);
+        IntVector set = ZERO;
+        int n = SPECIES.loopBound(counted.length);
+        int i = 0;
+        for (; i<n; i+=SPECIES.length()) {
+            IntVector bit = ts.lanewise(VectorOperators.LSHR, IntVector.fromArray(SPECIES, counted, i)).and(1);
+            set = set.or(bit.lanewise(VectorOperators.LSHL, IntVector.fromArray(SPECIES, pieces, i)));
+        }
+        int result = set.reduceLanes(VectorOperators.OR);
+        for (; i<counted.length; i++) result |= ((types >>> counted[i]) & 1) << pieces[i];
+        return result;
+    }
+
+    public int distanceSum(int[] distance, int unreachable) {
+        // add up everything, then correct for the unreachable hexes
+        IntVector sum = ZERO;
+        int u = 0;
+        int n = SPECIES.loopBound(distance.length);
+        int i = 0;
+        for (; i<n; i+=SPECIES.length()) {
+            IntVector d = IntVector.fromArray(SPECIES, distance, i);
+            sum = sum.add(d);
+            u += d.eq(FillerModel.UNREACHABLE_DISTANCE).trueCount();
+        }
+        int total = sum.reduceLanes(VectorOperators.ADD);
+        for (; i<distance.length; i++) {
+            total += distance[i];
+            if (distance[i] == FillerModel.UNREACHABLE_DISTANCE) u++;
+        }
+        return total + u * (unreachable - FillerModel.UNREACHABLE_DISTANCE);
+    }
+
+}
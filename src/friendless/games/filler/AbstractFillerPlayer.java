@@ -23,58 +23,72 @@ import java.util.*;
  * @author John Farrell
  */
 public abstract class AbstractFillerPlayer implements FillerPlayer {
+    /** The shape of the board in the game being played. */
+    protected BoardGeometry geometry = BoardGeometry.STANDARD;
+
     /** Get the the X coordinate of piece <code>i</code>. */
-    protected static int getX(int i) { return FillerModel.getX(i); }
+    protected int getX(int i) { return geometry.getX(i); }
 
     /** Get the the Y coordinate of piece <code>i</code>. */
-    protected static int getY(int i) { return FillerModel.getY(i); }
+    protected int getY(int i) { return geometry.getY(i); }
 
-    /** Make a piece index from a given x and y. */
+    /** Make a piece index on the standard board from a given x and y. */
     protected static int makeIndex(int x, int y) {
         return FillerModel.makeIndex(x, y);
     }
 
-    protected static Random rng = new Random();
+    /** This player's random numbers, which a game may replace with its own. */
+    protected SplittableRandom rng = new SplittableRandom();
 
     /** origins[0] is this player's origin, origins[1] is the opponents. */
     protected int[] origins;
     /** same as origins but with the order swapped. */
     protected int[] reverseOrigins;
+    /** When the move being made must be chosen by. */
+    protected Deadline deadline = Deadline.NONE;
+
+    public void setRandom(SplittableRandom rng) {
+        this.rng = rng;
+    }
 
     public void setOrigin(int origin, int otherOrigin) {
         origins = new int[] { origin, otherOrigin };
         reverseOrigins = new int[] { otherOrigin, origin };
     }
 
+    public int takeTurn(FillerModel model, int otherPlayerColour, Deadline deadline) {
+        this.deadline = deadline;
+        try {
+            return takeTurn(model, otherPlayerColour);
+        } finally {
+            this.deadline = Deadline.NONE;
+        }
+    }
+
    /** To be overridden by each player. */
     public abstract int turn();
 
-    protected static BitSet allColours() {
-        BitSet b = new BitSet(FillerSettings.NUM_COLOURS);
-        for (int i=0; i<FillerSettings.NUM_COLOURS; i++) b.set(i);
-        return b;
+    /**
+     * Sets of colours are represented as int bit masks, with bit c set if
+     * colour c is in the set.
+     * @return the set of all colours.
+     */
+    protected int allColours() {
+        return -1 >>> (32 - geometry.getNumColours());
     }
 
     protected final int[] copy(int[] src) {
         return src.clone();
     }
 
-    protected int chooseRandom(BitSet choices) {
-        if (choices == null) return -1;
-        int count = 0;
-        for (int i=0; i<FillerSettings.NUM_COLOURS; i++) {
-            if (choices.get(i)) count++;
-        }
+    /** @return a random colour from the set <code>choices</code>, or -1 if it is empty. */
+    protected int chooseRandom(int choices) {
+        int count = Integer.bitCount(choices);
         if (count == 0) return -1;
         int r = rng.nextInt(count);
-        count = 0;
-        for (int i=0; i<FillerSettings.NUM_COLOURS; i++) {
-            if (choices.get(i)) {
-                if (count == r) return i;
-                count++;
-            }
-        }
-        return -1;
+        // drop the lowest r colours
+        while (r-- > 0) choices &= choices - 1;
+        return Integer.numberOfTrailingZeros(choices);
     }
 
     /** precalculated square roots of the numbers up to 20. */
@@ -92,11 +106,11 @@ public abstract class AbstractFillerPlayer implements FillerPlayer {
         return a1;
     }
 
-    protected static int sideDistance(int p1, int p2) {
+    protected int sideDistance(int p1, int p2) {
         return Math.abs(getX(p1)-getX(p2)) + Math.abs(getY(p1)-getY(p2));
     }
 
-    protected static int diagDistance(int p1, int p2) {
+    protected int diagDistance(int p1, int p2) {
         int x = getX(p1)-getX(p2);
         int y = (getY(p1)-getY(p2)) * 3;
         return intRoot(x*x + y*y);
@@ -0,0 +1,340 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+/**
+ * Searches a number of moves ahead, with each player choosing in turn, and
+ * scores the positions at the end with an Evaluator. Alpha-beta pruning
+ * stops it looking at moves once it knows that they can't be better than
+ * one it has already found.
+ * <P>
+ * Values are from the point of view of the player to move (negamax), and
+ * the evaluator's score is from the point of view of player 0, the player
+ * doing the search. At each position the moves which get the most hexes
+ * straight away are tried first, as they are usually the best, and that
+ * makes the pruning work better.
+ * <P>
+ * With a deadline the search is done again and again, one move deeper
+ * each time (iterative deepening), trying the best move from the last time
+ * first, until the deadline passes. The best move found by then is used.
+ * <P>
+ * If it is given a TranspositionTable, positions which have been searched
+ * already (by this search or by any other sharing the table) are looked up
+ * rather than searched again, and the best move found for a position last
+ * time is tried first.
+ * <P>
+ * A search uses one SearchBoard and one FillerPlayerSpace and allocates no
+ * memory while it runs, so each thread needs its own AlphaBetaSearch.
+ *
+ * @author John Farrell
+ */
+public class AlphaBetaSearch {
+    /** The value of having won. Quicker wins are worth a little more. */
+    public static final int WIN = 1000000;
+    /** Values further than this from 0 are wins or losses. */
+    private static final int WON = WIN - 10000;
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    private final BoardGeometry geometry;
+    private final SearchBoard board;
+    private final FillerPlayerSpace space;
+    private Evaluator evaluator;
+    private boolean distance, opponentDistance;
+    private final int[] origins = new int[2];
+    /** The moves at each ply, in the order they are to be tried. */
+    private int[][] moves = new int[0][];
+    private int[][] gains = new int[0][];
+    private long nodes;
+    /** Positions that have been searched already, or null. */
+    private TranspositionTable table;
+    private Deadline deadline = Deadline.NONE;
+    /** Whether the deadline passed or the search was stopped while it ran. */
+    private boolean aborted;
+    /** Set by another thread to make the search give up as soon as it can. */
+    private volatile boolean stopped;
+    /** The deepest search which was finished in the last call to search. */
+    private int completedDepth;
+    /** The value of the best move found by searchRoot. */
+    private int rootValue;
+
+    /**
+     * @param distance whether the evaluator needs space.distance.
+     * @param opponentDistance whether the evaluator needs space.opponentDistance.
+     */
+    public AlphaBetaSearch(BoardGeometry geometry, Evaluator evaluator, boolean distance, boolean opponentDistance) {
+        this.geometry = geometry;
+        this.board = new SearchBoard(geometry);
+        this.space = new FillerPlayerSpace(geometry);
+        setEvaluator(evaluator, distance, opponentDistance);
+    }
+
+    public void setEvaluator(Evaluator evaluator, boolean distance, boolean opponentDistance) {
+        this.evaluator = evaluator;
+        this.distance = distance;
+        this.opponentDistance = opponentDistance;
+    }
+
+    public BoardGeometry getGeometry() { return geometry; }
+
+    /** Remember searched positions in <code>table</code>, which may be shared, or null for none. */
+    public void setTable(TranspositionTable table) {
+        this.table = table;
+    }
+
+    public TranspositionTable getTable() { return table; }
+
+    /** @return the number of positions looked at by the last search. */
+    public long getNodes() { return nodes; }
+
+    /** @return how many moves ahead the last search finished looking. */
+    public int getCompletedDepth() { return completedDepth; }
+
+    /**
+     * @param origins origins[0] is the origin of the player to move.
+     * @param depth the number of moves to look ahead, at least 1.
+     * @return the best colour for the player to move, or -1 if there is no
+     * move.
+     */
+    public int search(FillerModel model, int[] origins, int depth) {
+        return search(model, origins, depth, Deadline.NONE);
+    }
+
+    /**
+     * Look further and further ahead until <code>depth</code> moves ahead
+     * have been searched or the deadline passes. Looking one move ahead is
+     * always finished, so there is always a move.
+     * @param origins origins[0] is the origin of the player to move.
+     * @return the best colour for the player to move, or -1 if there is no
+     * move.
+     */
+    public int search(FillerModel model, int[] origins, int depth, Deadline deadline) {
+        return search(model, origins, depth, deadline, true);
+    }
+
+    /**
+     * @param newSearch whether to tell the table that this is a new search,
+     * which is false for the helpers of a ParallelSearch, as they share the
+     * table with the main search.
+     */
+    int search(FillerModel model, int[] origins, int depth, Deadline deadline, boolean newSearch) {
+        this.origins[0] = origins[0];
+        this.origins[1] = origins[1];
+        this.deadline = Deadline.NONE;
+        board.setPosition(model, origins);
+        nodes = 0;
+        completedDepth = 0;
+        ensurePlies(depth + 1);
+        long hash = 0L;
+        int n;
+        if (table != null) {
+            if (newSearch) table.newSearch();
+            hash = board.getHash();
+            n = orderMoves(0, 0, TranspositionTable.move(table.probe(hash)));
+        } else {
+            n = orderMoves(0, 0, -1);
+        }
+        if (n == 0) return -1;
+        // without a deadline there's no need to go one move deeper at a time
+        int d = deadline.isLimited() ? 1 : depth;
+        int best = -1;
+        for (; d<=depth; d++) {
+            int c = searchRoot(n, d);
+            if (c >= 0) best = c;
+            if (aborted) break;
+            completedDepth = d;
+            if (table != null) table.store(hash, d, TranspositionTable.EXACT, toTable(rootValue, 0), best);
+            // try the best move first next time
+            moveToFront(moves[0], n, best);
+            this.deadline = deadline;
+        }
+        this.deadline = Deadline.NONE;
+        return best;
+    }
+
+    /**
+     * Stop or allow searching. A stopped search gives up as soon as it can,
+     * even if it hasn't looked one move ahead yet, so only the helpers of a
+     * ParallelSearch, whose answers aren't needed, are stopped.
+     */
+    void setStopped(boolean stopped) {
+        this.stopped = stopped;
+    }
+
+    /**
+     * Search the first <code>n</code> moves in moves[0], each to the given depth.
+     * @return the best move, or -1 if the deadline passed before the first
+     * move had been looked at properly.
+     */
+    private int searchRoot(int n, int depth) {
+        aborted = false;
+        int best = -1;
+        int alpha = -INFINITY;
+        rootValue = alpha;
+        for (int k=0; k<n; k++) {
+            int c = moves[0][k];
+            board.makeMove(0, c);
+            int v = -alphaBeta(1, depth - 1, 1, -INFINITY, -alpha);
+            board.unmakeMove();
+            if (aborted) break;
+            if (best < 0 || v > alpha) {
+                alpha = v;
+                best = c;
+                rootValue = v;
+            }
+        }
+        return best;
+    }
+
+    private static void moveToFront(int[] ms, int n, int c) {
+        for (int k=0; k<n; k++) {
+            if (ms[k] == c) {
+                System.arraycopy(ms, 0, ms, 1, k);
+                ms[0] = c;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the value of the position on the board for <code>player</code>,
+     * who is to move, looking <code>depth</code> moves ahead.
+     */
+    private int alphaBeta(int player, int depth, int ply, int alpha, int beta) {
+        nodes++;
+        if ((nodes & 15) == 0 && (stopped || deadline.expired())) aborted = true;
+        if (aborted) return 0;
+        if (board.isOver()) return terminal(player, ply);
+        long hash = 0L;
+        int hashMove = -1;
+        if (table != null) {
+            hash = board.getHash() ^ ((player == 0) ? 0L : Zobrist.SECOND_PLAYER);
+            long data = table.probe(hash);
+            if (data != 0L) {
+                hashMove = TranspositionTable.move(data);
+                if (TranspositionTable.depth(data) >= depth) {
+                    int v = fromTable(TranspositionTable.score(data), ply);
+                    switch (TranspositionTable.bound(data)) {
+                        case TranspositionTable.EXACT:
+                            return v;
+                        case TranspositionTable.LOWER:
+                            if (v >= beta) return v;
+                            break;
+                        case TranspositionTable.UPPER:
+                            if (v <= alpha) return v;
+                            break;
+                    }
+                }
+            }
+        }
+        int n = (depth <= 0) ? 0 : orderMoves(player, ply, hashMove);
+        if (n == 0) {
+            int v = evaluate(player);
+            if (table != null) table.store(hash, depth, TranspositionTable.EXACT, toTable(v, ply), -1);
+            return v;
+        }
+        int[] ms = moves[ply];
+        int bound = TranspositionTable.UPPER;
+        int best = -1;
+        for (int k=0; k<n; k++) {
+            board.makeMove(player, ms[k]);
+            int v = -alphaBeta(1 - player, depth - 1, ply + 1, -beta, -alpha);
+            board.unmakeMove();
+            if (aborted) return 0;
+            if (v > alpha) {
+                alpha = v;
+                best = ms[k];
+                bound = TranspositionTable.EXACT;
+                if (alpha >= beta) {
+                    bound = TranspositionTable.LOWER;
+                    break;
+                }
+            }
+        }
+        if (table != null) table.store(hash, depth, bound, toTable(alpha, ply), best);
+        return alpha;
+    }
+
+    /** Wins are stored as distance from this position rather than from the root. */
+    private static int toTable(int v, int ply) {
+        if (v > WON) return v + ply;
+        if (v < -WON) return v - ply;
+        return v;
+    }
+
+    private static int fromTable(int v, int ply) {
+        if (v > WON) return v - ply;
+        if (v < -WON) return v + ply;
+        return v;
+    }
+
+    /**
+     * Fill in moves[ply] with the legal moves for <code>player</code>,
+     * <code>first</code> first if it is one of them, then those which gain
+     * the most hexes.
+     * @return the number of moves.
+     */
+    private int orderMoves(int player, int ply, int first) {
+        int[] ms = moves[ply];
+        int[] gs = gains[ply];
+        int before = board.getScore(player);
+        int legal = board.legalMoves(player);
+        int n = 0;
+        while (legal != 0) {
+            int c = Integer.numberOfTrailingZeros(legal);
+            legal &= legal - 1;
+            int gain = board.makeMove(player, c) - before;
+            board.unmakeMove();
+            // insertion sort, biggest gain first
+            int k = n++;
+            while (k > 0 && gs[k-1] < gain) {
+                ms[k] = ms[k-1];
+                gs[k] = gs[k-1];
+                k--;
+            }
+            ms[k] = c;
+            gs[k] = gain;
+        }
+        if (first >= 0) moveToFront(ms, n, first);
+        return n;
+    }
+
+    private int terminal(int player, int ply) {
+        int diff = board.getScore(player) - board.getScore(1 - player);
+        if (diff > 0) return WIN - ply;
+        if (diff < 0) return ply - WIN;
+        return 0;
+    }
+
+    private int evaluate(int player) {
+        FillerModel model = board.getModel();
+        FillerModel.allocateTypes(model, origins, space);
+        if (distance && opponentDistance) {
+            FillerModel.allocateDistances(model, space);
+        } else if (distance) {
+            FillerModel.allocateDistance(model, space);
+        } else if (opponentDistance) {
+            FillerModel.allocateOpponentDistance(model, space);
+        }
+        int v = evaluator.eval(model, space, origins);
+        return (player == 0) ? v : -v;
+    }
+
+    private void ensurePlies(int plies) {
+        if (moves.length >= plies) return;
+        int n = geometry.getNumColours();
+        moves = new int[plies][n];
+        gains = new int[plies][n];
+    }
+}
@@ -0,0 +1,295 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Plays lots of games between robots from the command line, without the
+ * GUI, and says how they went. It's for finding out whether a change to a
+ * robot makes it any better, which takes more games than anybody wants to
+ * watch.
+ * <P>
+ * Usage:
+ * <PRE>
+ *   Batch <i>robot robot</i> [<i>options</i>]
+ *   Batch -pool <i>robot,robot,...</i>|all [<i>options</i>]
+ * </PRE>
+ * Robots are named by their class names, as in
+ * PlayerWrappers.PLAYER_CLASS_NAMES. With a pool, every pair of robots in it
+ * plays. The options are:
+ * <dl>
+ * <dt>-games <i>n</i>
+ * <dd>the number of games each pair plays, taking turns to start (100).
+ * <dt>-movetime <i>ms</i>
+ * <dd>how long robots may think about each move, or 0 for as long as they like (0).
+ * <dt>-maxmoves <i>n</i>
+ * <dd>games which go on this long are decided on the score so far (2000).
+ * <dt>-seed <i>n</i>
+ * <dd>where the seeds of the games come from, so the same games can be
+ * played again. Otherwise one is taken from Seeds, and printed. Searches
+ * keep to one thread when this is given, so the games come out the same.
+ * <dt>-replay <i>seed</i>
+ * <dd>play just the game with this seed, as written by -out, between the
+ * two robots in the order given, searching on one thread.
+ * <dt>-out <i>file</i>
+ * <dd>write the result of every game to <i>file</i>, one game per line.
+ * </dl>
+ * Games are played all at once by a MatchRunner, so the number of games
+ * played at the same time is set by filler.match.threads.
+ *
+ * @author John Farrell
+ */
+public class Batch {
+    /** How many games are waiting or being played for each thread. */
+    private static final int QUEUE_PER_THREAD = 4;
+
+    private final MatchRunner runner;
+    private final String[] robots;
+    private final int games;
+    private final SplittableRandom seeds;
+    private final PrintWriter out;
+    /** The record of each pair: the results for pairs[i][j], with i < j. */
+    private final Record[][] records;
+    private long played;
+    private long started;
+
+    /**
+     * @param robots the class names of the robots. Every pair plays.
+     * @param games the number of games each pair plays.
+     * @param out where to write the result of every game, or null.
+     */
+    public Batch(MatchRunner runner, String[] robots, int games, SplittableRandom seeds, PrintWriter out) {
+        this.runner = runner;
+        this.robots = robots.clone();
+        this.games = games;
+        this.seeds = seeds;
+        this.out = out;
+        records = new Record[robots.length][robots.length];
+        for (int i=0; i<robots.length; i++) {
+            for (int j=i+1; j<robots.length; j++) records[i][j] = new Record();
+        }
+    }
+
+    /** Play all of the games, saying how it's going now and then. */
+    public void run(PrintStream progress) {
+        int pairs = robots.length * (robots.length - 1) / 2;
+        long total = (long) pairs * games;
+        long nextReport = Math.max(1, total / 10);
+        Deque<Future<GameResult>> queue = new ArrayDeque<>();
+        Deque<int[]> queued = new ArrayDeque<>();
+        int window = QUEUE_PER_THREAD * runner.getThreads();
+        started = System.nanoTime();
+        if (out != null) out.println("game\tfirst\tsecond\tseed\tfirst score\tsecond score\tmoves");
+        for (int i=0; i<robots.length; i++) {
+            for (int j=i+1; j<robots.length; j++) {
+                for (int g=0; g<games; g++) {
+                    // take turns to start
+                    final String first = robots[(g % 2 == 0) ? i : j];
+                    final String second = robots[(g % 2 == 0) ? j : i];
+                    queue.add(runner.submit(() -> MatchRunner.newPlayer(first), () -> MatchRunner.newPlayer(second),
+                            seeds.nextLong()));
+                    queued.add(new int[] { i, j, g % 2 });
+                    // don't make more games than can be kept busy
+                    while (queue.size() >= window) {
+                        record(queue.remove(), queued.remove());
+                        if (played % nextReport == 0) report(progress, total);
+                    }
+                }
+            }
+        }
+        while (!queue.isEmpty()) {
+            record(queue.remove(), queued.remove());
+            if (played % nextReport == 0) report(progress, total);
+        }
+        if (out != null) out.flush();
+    }
+
+    private void record(Future<GameResult> game, int[] pair) {
+        GameResult result = MatchRunner.get(game);
+        if (result == null) throw new IllegalStateException("interrupted");
+        played++;
+        records[pair[0]][pair[1]].add(result, pair[2]);
+        if (out != null) {
+            out.println(played + "\t" + robots[pair[2] == 0 ? pair[0] : pair[1]] + "\t" +
+                    robots[pair[2] == 0 ? pair[1] : pair[0]] + "\t" + result.getSeed() + "\t" +
+                    result.getScore(0) + "\t" + result.getScore(1) + "\t" + result.getMoves());
+        }
+    }
+
+    private void report(PrintStream progress, long total) {
+        progress.printf("%d/%d games, %.1f games/s%n", played, total, getGamesPerSecond());
+    }
+
+    public double getGamesPerSecond() {
+        double seconds = (System.nanoTime() - started) / 1e9;
+        return (seconds == 0.0) ? 0.0 : played / seconds;
+    }
+
+    /** Print how each pair did, and with a pool how each robot did over all its games. */
+    public void printResults(PrintStream ps) {
+        for (int i=0; i<robots.length; i++) {
+            for (int j=i+1; j<robots.length; j++) {
+                Record r = records[i][j];
+                if (r.games == 0) continue;
+                ps.printf("%s v %s: %d games, %s %.1f%%, %s %.1f%%, %d drawn; mean score %.1f - %.1f; mean %.1f moves%n",
+                        robots[i], robots[j], r.games, robots[i], 100.0 * r.wins[0] / r.games,
+                        robots[j], 100.0 * r.wins[1] / r.games, r.draws(),
+                        (double) r.scores[0] / r.games, (double) r.scores[1] / r.games,
+                        (double) r.moves / r.games);
+            }
+        }
+        if (robots.length > 2) {
+            // the robots by the points they got, a draw being half a point
+            Integer[] order = new Integer[robots.length];
+            double[] points = new double[robots.length];
+            long[] count = new long[robots.length];
+            for (int i=0; i<robots.length; i++) {
+                order[i] = i;
+                for (int j=0; j<robots.length; j++) {
+                    if (i == j) continue;
+                    Record r = (i < j) ? records[i][j] : records[j][i];
+                    int me = (i < j) ? 0 : 1;
+                    points[i] += r.wins[me] + 0.5 * r.draws();
+                    count[i] += r.games;
+                }
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(points[b] / count[b], points[a] / count[a]));
+            for (int i : order) ps.printf("%-12s %5.1f%%%n", robots[i], 100.0 * points[i] / count[i]);
+        }
+        ps.printf("%d games in %.1fs, %.1f games/s%n", played, (System.nanoTime() - started) / 1e9,
+                getGamesPerSecond());
+        if (MonteCarloSearch.getTotalPlayouts() > 0) {
+            ps.printf("Monte Carlo searches played out %d games, %.0f/s%n", MonteCarloSearch.getTotalPlayouts(),
+                    MonteCarloSearch.getTotalPlayoutsPerSecond());
+        }
+    }
+
+    /** The results of the games between a pair of robots, from the point of view of the first. */
+    private static class Record {
+        int games;
+        int[] wins = new int[2];
+        long[] scores = new long[2];
+        long moves;
+
+        /**
+         * @param swapped 1 if the second robot of the pair started the
+         * game, so it was player 0.
+         */
+        void add(GameResult result, int swapped) {
+            games++;
+            int winner = result.getWinner();
+            if (winner >= 0) wins[winner ^ swapped]++;
+            for (int p=0; p<2; p++) scores[p ^ swapped] += result.getScore(p);
+            moves += result.getMoves();
+        }
+
+        int draws() { return games - wins[0] - wins[1]; }
+    }
+
+    /** @return whether <code>name</code> is a robot which can play here. */
+    private static boolean isRobot(String name) {
+        return MatchRunner.isRobot(MatchRunner.playerClass(name));
+    }
+
+    public static void main(String[] args) {
+        List<String> robots = new ArrayList<>();
+        int games = 100;
+        long moveTime = 0;
+        int maxMoves = 2000;
+        Long seed = null;
+        Long replay = null;
+        String outFile = null;
+        try {
+            for (int a=0; a<args.length; a++) {
+                String arg = args[a];
+                if (!arg.startsWith("-")) {
+                    robots.add(arg);
+                    continue;
+                }
+                if (a + 1 == args.length) usage();
+                String value = args[++a];
+                switch (arg) {
+                    case "-pool":
+                        if (value.equals("all")) {
+                            robots.addAll(Arrays.asList(PlayerWrappers.PLAYER_CLASS_NAMES));
+                            robots.removeIf(name -> !isRobot(name));
+                        } else {
+                            robots.addAll(Arrays.asList(value.split(",")));
+                        }
+                        break;
+                    case "-games": games = Integer.parseInt(value); break;
+                    case "-movetime": moveTime = Long.parseLong(value); break;
+                    case "-maxmoves": maxMoves = Integer.parseInt(value); break;
+                    case "-seed": seed = Long.parseLong(value); break;
+                    case "-replay": replay = Long.parseLong(value); break;
+                    case "-out": outFile = value; break;
+                    default: usage();
+                }
+            }
+        } catch (NumberFormatException ex) {
+            usage();
+        }
+        if (robots.size() < 2 || games < 1 || maxMoves < 1) usage();
+        if (replay != null && robots.size() != 2) usage();
+        for (String name : robots) {
+            try {
+                if (!isRobot(name)) {
+                    System.err.println(name + " is not a robot");
+                    System.exit(1);
+                }
+            } catch (IllegalArgumentException ex) {
+                System.err.println(ex.getMessage());
+                System.exit(1);
+            }
+        }
+        PrintWriter out = null;
+        if (outFile != null) {
+            try {
+                out = new PrintWriter(new BufferedWriter(new FileWriter(outFile)));
+            } catch (IOException ex) {
+                System.err.println("Can't write to " + outFile + ": " + ex.getMessage());
+                System.exit(1);
+            }
+        }
+        if (seed != null || replay != null) Seeds.setReproducible(true);
+        MatchRunner runner = new MatchRunner();
+        runner.setMoveTime(moveTime);
+        runner.setMaxMoves(maxMoves);
+        if (replay != null) {
+            FillerPlayer[] players = { MatchRunner.newPlayer(robots.get(0)), MatchRunner.newPlayer(robots.get(1)) };
+            System.out.println(runner.play(players, replay));
+            runner.shutdown();
+            return;
+        }
+        if (seed == null) seed = Seeds.split().nextLong();
+        System.out.println("Seed " + seed);
+        Batch batch = new Batch(runner, robots.toArray(new String[robots.size()]), games,
+                new SplittableRandom(seed), out);
+        batch.run(System.out);
+        batch.printResults(System.out);
+        if (out != null) out.close();
+        runner.shutdown();
+    }
+
+    private static void usage() {
+        System.err.println("Usage: Batch robot robot [options]");
+        System.err.println("       Batch -pool robot,robot,...|all [options]");
+        System.err.println("Options: -games n -movetime ms -maxmoves n -seed n -replay seed -out file");
+        System.exit(1);
+    }
+}
@@ -0,0 +1,207 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+/**
+ * A representation of the board as one bit mask per colour.
+ * Bit i of a mask is hex number i in the FillerModel numbering scheme, so a
+ * mask for the standard board fits into a couple of dozen longs.
+ * <P>
+ * Because a hex at index i has its neighbours at fixed offsets from i
+ * (which offsets depends only on whether its column is odd or even), the
+ * neighbours of every hex in a mask can be found by shifting the whole mask
+ * a word at a time. Flood fills then become a loop of shifts and ANDs
+ * which stops when the mask doesn't change any more.
+ *
+ * @author John Farrell
+ */
+public class BitBoard {
+    /** The shape of the board. */
+    private final BoardGeometry geometry;
+    /** Number of longs needed to hold a mask for the whole board. */
+    private final int words;
+    /** Offset to the hex in the same row two columns across. */
+    private final int across;
+    /** Offset to the hex in the same row one column across. */
+    private final int side;
+    /** colours[c] is the mask of hexes which are colour c. */
+    private final long[][] colours;
+
+    public BitBoard(FillerModel model) {
+        geometry = model.geometry;
+        words = geometry.words;
+        side = geometry.getRows();
+        across = 2 * side;
+        colours = new long[geometry.getNumColours()][words];
+        int[] pieces = model.pieces;
+        for (int i=0; i<pieces.length; i++) {
+            int c = pieces[i];
+            if (c >= 0 && c < colours.length) set(colours[c], i);
+        }
+    }
+
+    /** @return the mask of hexes which are colour <code>c</code>. Do not modify it. */
+    public long[] colour(int c) { return colours[c]; }
+
+    /** @return a new empty mask. */
+    public long[] newMask() { return new long[words]; }
+
+    public static boolean get(long[] mask, int i) {
+        return (mask[i >>> 6] & (1L << i)) != 0;
+    }
+
+    public static void set(long[] mask, int i) {
+        mask[i >>> 6] |= 1L << i;
+    }
+
+    public static void clear(long[] mask) {
+        for (int w=0; w<mask.length; w++) mask[w] = 0L;
+    }
+
+    /** @return the number of hexes in <code>mask</code>. */
+    public static int count(long[] mask) {
+        int n = 0;
+        for (long m : mask) n += Long.bitCount(m);
+        return n;
+    }
+
+    /**
+     * Write the indexes of the hexes in <code>mask</code> into
+     * <code>dst</code> in increasing order.
+     * @return the number of indexes written.
+     */
+    public static int indexes(long[] mask, int[] dst) {
+        int n = 0;
+        for (int w=0; w<mask.length; w++) {
+            long m = mask[w];
+            while (m != 0) {
+                dst[n++] = (w << 6) + Long.numberOfTrailingZeros(m);
+                m &= m - 1;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Set <code>dst</code> to all of the hexes which are neighbours of a hex
+     * in <code>src</code>. This may include hexes which are in src.
+     */
+    public void grow(long[] src, long[] dst) {
+        long[] even = geometry.evenMask;
+        long[] odd = geometry.oddMask;
+        long[] valid = geometry.validMask;
+        clear(dst);
+        shiftLeftOr(src, null, across, dst);
+        shiftRightOr(src, null, across, dst);
+        shiftLeftOr(src, null, side, dst);
+        shiftRightOr(src, null, side, dst);
+        // even columns: above to the left and above to the right
+        shiftRightOr(src, even, side + 1, dst);
+        shiftLeftOr(src, even, side - 1, dst);
+        // odd columns: below to the left and below to the right
+        shiftRightOr(src, odd, side - 1, dst);
+        shiftLeftOr(src, odd, side + 1, dst);
+        for (int w=0; w<words; w++) dst[w] &= valid[w];
+    }
+
+    /**
+     * Grow <code>region</code> into neighbouring hexes which are in
+     * <code>passable</code> and not in <code>exclude</code> until it can grow
+     * no further.
+     * @param exclude hexes which may not be entered, or null.
+     * @param scratch a mask which will be overwritten.
+     * @return the number of hexes in the region.
+     */
+    public int flood(long[] region, long[] passable, long[] exclude, long[] scratch) {
+        boolean changed = true;
+        while (changed) {
+            grow(region, scratch);
+            changed = false;
+            for (int w=0; w<words; w++) {
+                long allowed = (exclude == null) ? passable[w] : (passable[w] & ~exclude[w]);
+                long m = region[w] | (scratch[w] & allowed);
+                if (m != region[w]) {
+                    region[w] = m;
+                    changed = true;
+                }
+            }
+        }
+        return count(region);
+    }
+
+    /**
+     * Set <code>result</code> to the hexes of the same colour as
+     * <code>origin</code> which are joined to it, i.e. the territory of the
+     * player who started at <code>origin</code>.
+     * @param scratch a mask which will be overwritten.
+     * @return the number of hexes in the territory.
+     */
+    public int territory(int origin, long[] result, long[] scratch) {
+        clear(result);
+        set(result, origin);
+        int c = -1;
+        for (int i=0; i<colours.length; i++) {
+            if (get(colours[i], origin)) c = i;
+        }
+        if (c < 0) return 1;
+        return flood(result, colours[c], null, scratch);
+    }
+
+    /**
+     * Grow <code>territory</code> as it would if its owner chose colour
+     * <code>c</code>. Hexes in <code>exclude</code> (e.g. the opponent's
+     * territory) are never taken.
+     * @param scratch a mask which will be overwritten.
+     * @return the number of hexes in the territory.
+     */
+    public int absorb(long[] territory, int c, long[] exclude, long[] scratch) {
+        return flood(territory, colours[c], exclude, scratch);
+    }
+
+    /**
+     * OR <code>src</code> (masked by <code>select</code> if it is not null)
+     * shifted towards higher indexes by <code>n</code> into <code>dst</code>.
+     */
+    private static void shiftLeftOr(long[] src, long[] select, int n, long[] dst) {
+        int words = n >>> 6;
+        int bits = n & 63;
+        for (int w=dst.length-1; w>=words; w--) {
+            int s = w - words;
+            long lo = word(src, select, s);
+            long v = lo << bits;
+            if (bits != 0 && s > 0) v |= word(src, select, s - 1) >>> (64 - bits);
+            dst[w] |= v;
+        }
+    }
+
+    /**
+     * OR <code>src</code> (masked by <code>select</code> if it is not null)
+     * shifted towards lower indexes by <code>n</code> into <code>dst</code>.
+     */
+    private static void shiftRightOr(long[] src, long[] select, int n, long[] dst) {
+        int words = n >>> 6;
+        int bits = n & 63;
+        for (int w=0; w<dst.length-words; w++) {
+            int s = w + words;
+            long v = word(src, select, s) >>> bits;
+            if (bits != 0 && s < dst.length - 1) v |= word(src, select, s + 1) << (64 - bits);
+            dst[w] |= v;
+        }
+    }
+
+    private static long word(long[] src, long[] select, int w) {
+        return (select == null) ? src[w] : (src[w] & select[w]);
+    }
+}
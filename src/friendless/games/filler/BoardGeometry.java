@@ -0,0 +1,193 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+/**
+ * The shape of a board: how many columns and rows it has, how many colours
+ * are used, where the players start, and which hexes are next to which.
+ * <P>
+ * Hexes are numbered column by column, so hex i is at column i / rows and
+ * row i % rows. Even columns are half a hex lower than odd columns, so the
+ * top hex of every even column is not on the board. The number of columns
+ * must be odd so that the board is symmetrical, so for a board of about a
+ * thousand hexes square, use 1001x1000 rather than 1000x1000.
+ * <P>
+ * The neighbours of all hexes are kept in one array: the neighbours of hex
+ * i are <code>adjacent[first[i]]</code> up to but not including
+ * <code>adjacent[first[i+1]]</code>. This is much smaller than an array per
+ * hex, which matters for very large boards.
+ *
+ * @author John Farrell
+ */
+public final class BoardGeometry {
+    /** The board that the game is played on. */
+    public static final BoardGeometry STANDARD =
+        new BoardGeometry(FillerSettings.COLUMNS, FillerSettings.ROWS, FillerSettings.NUM_COLOURS);
+    /** Maximum neighbours that a hex could have. */
+    public static final int MAX_NEIGHBOURS = 6;
+
+    private final int columns;
+    private final int rows;
+    private final int size;
+    private final int numColours;
+    private final int numValid;
+    private final int[] origins;
+    /** Index into adjacent of the first neighbour of each hex. */
+    final int[] first;
+    /** The neighbours of all of the hexes, one after the other. */
+    final int[] adjacent;
+    /** Number of longs in a BitBoard mask for this board. */
+    final int words;
+    /** BitBoard masks of all hexes, hexes in even columns, and hexes in odd columns except the bottom row. */
+    final long[] validMask, evenMask, oddMask;
+
+    /**
+     * @param columns the number of columns, which must be odd.
+     * @param rows the number of rows.
+     * @param numColours the number of colours, which must leave at least one
+     * colour that neither player has. There can be at most 32, so that a set
+     * of colours fits in an int.
+     */
+    public BoardGeometry(int columns, int rows, int numColours) {
+        if (columns < 3 || columns % 2 == 0) {
+            throw new IllegalArgumentException("need an odd number of columns: " + columns);
+        }
+        if (rows < 2) throw new IllegalArgumentException("need at least 2 rows: " + rows);
+        if (numColours < 3 || numColours > 32) {
+            throw new IllegalArgumentException("need between 3 and 32 colours: " + numColours);
+        }
+        long cells = (long) columns * rows;
+        if (cells > Integer.MAX_VALUE / MAX_NEIGHBOURS) {
+            throw new IllegalArgumentException("board too big: " + columns + "x" + rows);
+        }
+        this.columns = columns;
+        this.rows = rows;
+        this.numColours = numColours;
+        size = columns * rows;
+        numValid = size - (columns + 1) / 2;
+        origins = new int[] { makeIndex(1, rows-1), makeIndex(columns-2, 0) };
+        first = new int[size + 1];
+        int[] ns = new int[size * MAX_NEIGHBOURS];
+        int n = 0;
+        for (int i=0; i<size; i++) {
+            first[i] = n;
+            if (valid(i)) n = calcNeighbours(i, ns, n);
+        }
+        first[size] = n;
+        adjacent = new int[n];
+        System.arraycopy(ns, 0, adjacent, 0, n);
+        words = (size + 63) >>> 6;
+        validMask = new long[words];
+        evenMask = new long[words];
+        oddMask = new long[words];
+        for (int i=0; i<size; i++) {
+            if (!valid(i)) continue;
+            BitBoard.set(validMask, i);
+            if (getX(i) % 2 == 0) {
+                BitBoard.set(evenMask, i);
+            } else if (getY(i) < rows - 1) {
+                BitBoard.set(oddMask, i);
+            }
+        }
+    }
+
+    /**
+     * Write the neighbours of hex <code>i</code> into <code>ps</code>
+     * starting at <code>idx</code>.
+     * @return the index after the last neighbour written.
+     */
+    private int calcNeighbours(int i, int[] ps, int idx) {
+        int xi = getX(i);
+        int yi = getY(i);
+        // to the right
+        if (xi < columns-2) ps[idx++] = makeIndex(xi+2, yi);
+        // to the left
+        if (xi > 1) ps[idx++] = makeIndex(xi-2, yi);
+        if (xi % 2 == 0) {
+            if (xi > 0) {
+                // above and below to the left
+                ps[idx++] = makeIndex(xi-1, yi-1);
+                ps[idx++] = makeIndex(xi-1, yi);
+            }
+            if (xi < columns-1) {
+                // above and below to the right
+                ps[idx++] = makeIndex(xi+1, yi-1);
+                ps[idx++] = makeIndex(xi+1, yi);
+            }
+        } else {
+            if (yi > 0) {
+                // two above
+                ps[idx++] = makeIndex(xi-1, yi);
+                ps[idx++] = makeIndex(xi+1, yi);
+            }
+            if (yi < rows-1) {
+                // two below
+                ps[idx++] = makeIndex(xi-1, yi+1);
+                ps[idx++] = makeIndex(xi+1, yi+1);
+            }
+        }
+        return idx;
+    }
+
+    public int getColumns() { return columns; }
+
+    public int getRows() { return rows; }
+
+    /** @return the length of a pieces array for this board. */
+    public int getSize() { return size; }
+
+    public int getNumColours() { return numColours; }
+
+    /** @return the number of hexes which are actually on the board. */
+    public int getNumValid() { return numValid; }
+
+    /** @return the score which is more than half of the board. */
+    public int getPointsToWin() { return numValid / 2 + 1; }
+
+    /** @return the starting hexes of the two players. */
+    public int[] getOrigins() { return origins.clone(); }
+
+    public int getOrigin(int player) { return origins[player]; }
+
+    public int makeIndex(int x, int y) { return x * rows + y; }
+
+    public int getX(int i) { return valid(i) ? i / rows : -1; }
+
+    public int getY(int i) { return valid(i) ? i % rows : -1; }
+
+    public boolean valid(int i) { return (i % rows != 0) || ((i / rows) % 2 != 0); }
+
+    public int getNeighbourCount(int i) { return first[i+1] - first[i]; }
+
+    /** @return the k'th neighbour of hex i. */
+    public int getNeighbour(int i, int k) { return adjacent[first[i] + k]; }
+
+    /**
+     * @return a new array containing the neighbours of hex i. Loops which
+     * are run a lot should use getNeighbourCount and getNeighbour instead.
+     */
+    public int[] neighbours(int i) {
+        int[] result = new int[getNeighbourCount(i)];
+        System.arraycopy(adjacent, first[i], result, 0, result.length);
+        return result;
+    }
+
+    /** @return whether hex i is on the edge of the board. */
+    public boolean isPerimeter(int i) { return getNeighbourCount(i) < MAX_NEIGHBOURS; }
+
+    public String toString() {
+        return columns + "x" + rows + "/" + numColours;
+    }
+}
@@ -0,0 +1,114 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+/**
+ * The positions after the player to move chooses each colour, for looking
+ * one move ahead. They are all the same except for the colour of that
+ * player's territory, so the territory is found once for all of them, and
+ * each position is made by copying the board and painting the territory.
+ * <P>
+ * Each colour has its own model and space, kept from turn to turn, so the
+ * positions for different colours can be worked on by different threads at
+ * once, and apart from the masks used to find the territory nothing is
+ * allocated after the first turn.
+ *
+ * @author John Farrell
+ */
+public class ChildPositions {
+    private final BoardGeometry geometry;
+    private final FillerModel[] models;
+    private final FillerPlayerSpace[] spaces;
+    private final int[] territory;
+    private int size;
+    private int[] pieces;
+    private int[] origins;
+    /** The Zobrist hash of everything except my territory. */
+    private long rest;
+    /** The xor of the Zobrist hex keys of my territory. */
+    private long hexKeys;
+    private boolean distance, opponentDistance;
+
+    public ChildPositions(BoardGeometry geometry) {
+        this.geometry = geometry;
+        int n = geometry.getNumColours();
+        models = new FillerModel[n];
+        spaces = new FillerPlayerSpace[n];
+        for (int c=0; c<n; c++) {
+            models[c] = new FillerModel(geometry);
+            spaces[c] = new FillerPlayerSpace(geometry);
+        }
+        territory = new int[geometry.getSize()];
+    }
+
+    public BoardGeometry getGeometry() { return geometry; }
+
+    /**
+     * Look at the positions after this one. The model is not copied, so it
+     * must not change while the children are being looked at.
+     * @param origins origins[0] is the origin of the player to move.
+     * @param distance whether the children need space.distance.
+     * @param opponentDistance whether the children need space.opponentDistance.
+     */
+    public void setParent(FillerModel model, int[] origins, boolean distance, boolean opponentDistance) {
+        if (model.getGeometry() != geometry) throw new IllegalArgumentException("different board shapes");
+        this.pieces = model.pieces;
+        this.origins = origins;
+        this.distance = distance;
+        this.opponentDistance = opponentDistance;
+        // my territory is the same whatever colour I choose, so find it once
+        BitBoard bits = new BitBoard(model);
+        long[] mine = bits.newMask();
+        bits.territory(origins[0], mine, bits.newMask());
+        if (BitBoard.get(mine, origins[1])) {
+            // we are both the same colour and joined, so I only own my origin
+            BitBoard.clear(mine);
+            BitBoard.set(mine, origins[0]);
+        }
+        size = BitBoard.indexes(mine, territory);
+        long keys = 0L;
+        for (int i=0; i<size; i++) keys ^= Zobrist.hexKey(territory[i]);
+        hexKeys = keys;
+        rest = model.getHash() ^ Zobrist.colourKey(hexKeys, pieces[origins[0]]);
+    }
+
+    public int[] getOrigins() { return origins; }
+
+    /**
+     * Make the position after the player to move chooses colour
+     * <code>c</code>, and work out the types of the hexes in it, and the
+     * distances if they were asked for.
+     * @return the position, which is only good until child(c) is called again.
+     */
+    public FillerModel child(int c) {
+        FillerModel model = models[c];
+        model.copyPieces(pieces, rest ^ Zobrist.colourKey(hexKeys, c));
+        int[] ps = model.pieces;
+        for (int i=0; i<size; i++) ps[territory[i]] = c;
+        FillerPlayerSpace space = spaces[c];
+        FillerModel.allocateTypes(model, origins, space);
+        if (distance && opponentDistance) {
+            FillerModel.allocateDistances(model, space);
+        } else if (distance) {
+            FillerModel.allocateDistance(model, space);
+        } else if (opponentDistance) {
+            FillerModel.allocateOpponentDistance(model, space);
+        }
+        return model;
+    }
+
+    /** @return the types and distances for the position made by child(c). */
+    public FillerPlayerSpace space(int c) { return spaces[c]; }
+}
@@ -0,0 +1,148 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+import java.util.*;
+
+/**
+ * The colours of a board packed two hexes to a byte, for keeping lots of
+ * positions around. Hex 2n is in the high half of byte n and hex 2n+1 is in
+ * the low half, and hexes which are off the board (colour -1) are stored as
+ * 0x0F. This is the same encoding that is used to send the board to a
+ * remote player at the start of a game.
+ *
+ * @author John Farrell
+ */
+public final class CompactBoard {
+    /** What -1 is stored as. */
+    private static final int NONE = 0x0F;
+    /** The most colours that can be stored. */
+    public static final int MAX_COLOURS = NONE;
+    /** The colours of the high and low hexes of each possible byte. */
+    private static final int[] HIGH = new int[256], LOW = new int[256];
+
+    static {
+        for (int b=0; b<256; b++) {
+            HIGH[b] = decode(b >>> 4);
+            LOW[b] = decode(b & 0x0F);
+        }
+    }
+
+    private final BoardGeometry geometry;
+    private final byte[] data;
+
+    /** Create a board of the given shape with every hex colour 0. */
+    public CompactBoard(BoardGeometry geometry) {
+        if (geometry.getNumColours() > MAX_COLOURS) {
+            throw new IllegalArgumentException("too many colours to pack: " + geometry.getNumColours());
+        }
+        this.geometry = geometry;
+        this.data = new byte[(geometry.getSize() + 1) / 2];
+    }
+
+    /** Create a packed copy of <code>model</code>. */
+    public CompactBoard(FillerModel model) {
+        this(model.geometry);
+        pack(model.pieces);
+    }
+
+    /**
+     * Create a board from bytes in the packed format, for example ones
+     * which have been received from a remote player.
+     */
+    public CompactBoard(BoardGeometry geometry, byte[] bytes) {
+        this(geometry);
+        if (bytes.length != data.length) {
+            throw new IllegalArgumentException("expected " + data.length + " bytes, got " + bytes.length);
+        }
+        System.arraycopy(bytes, 0, data, 0, data.length);
+    }
+
+    public BoardGeometry getGeometry() { return geometry; }
+
+    /** @return the colour of hex i. */
+    public int get(int i) {
+        int b = data[i >> 1] & 0xFF;
+        return ((i & 1) == 0) ? HIGH[b] : LOW[b];
+    }
+
+    /** Set the colour of hex i. */
+    public void set(int i, int colour) {
+        int n = i >> 1;
+        int c = encode(colour);
+        if ((i & 1) == 0) {
+            data[n] = (byte) ((data[n] & 0x0F) | (c << 4));
+        } else {
+            data[n] = (byte) ((data[n] & 0xF0) | c);
+        }
+    }
+
+    /** Set the colour of the first <code>count</code> hexes in <code>hexes</code>. */
+    public void set(int[] hexes, int count, int colour) {
+        for (int k=0; k<count; k++) set(hexes[k], colour);
+    }
+
+    /** Copy the colours of all hexes from <code>pieces</code>. */
+    public void pack(int[] pieces) {
+        int pairs = pieces.length >> 1;
+        for (int n=0; n<pairs; n++) {
+            data[n] = (byte) ((encode(pieces[2*n]) << 4) | encode(pieces[2*n+1]));
+        }
+        if ((pieces.length & 1) != 0) data[pairs] = (byte) ((encode(pieces[pieces.length-1]) << 4) | NONE);
+    }
+
+    /** Copy the colours of all hexes into <code>pieces</code>. */
+    public void unpack(int[] pieces) {
+        int pairs = pieces.length >> 1;
+        for (int n=0; n<pairs; n++) {
+            int b = data[n] & 0xFF;
+            pieces[2*n] = HIGH[b];
+            pieces[2*n+1] = LOW[b];
+        }
+        if ((pieces.length & 1) != 0) pieces[pieces.length-1] = HIGH[data[pairs] & 0xFF];
+    }
+
+    /** Make this board the same as <code>other</code>, without allocating. */
+    public void copyFrom(CompactBoard other) {
+        if (other.geometry != geometry) throw new IllegalArgumentException("different board shapes");
+        System.arraycopy(other.data, 0, data, 0, data.length);
+    }
+
+    /** @return a copy of the packed bytes. */
+    public byte[] toBytes() {
+        return data.clone();
+    }
+
+    /** @return a new model with the same colours as this board. */
+    public FillerModel toModel() {
+        return new FillerModel(this);
+    }
+
+    public int hashCode() { return Arrays.hashCode(data); }
+
+    public boolean equals(Object o) {
+        if (!(o instanceof CompactBoard)) return false;
+        CompactBoard b = (CompactBoard) o;
+        return geometry == b.geometry && Arrays.equals(data, b.data);
+    }
+
+    private static int encode(int colour) {
+        return (colour < 0) ? NONE : colour;
+    }
+
+    private static int decode(int nibble) {
+        return (nibble == NONE) ? -1 : nibble;
+    }
+}
@@ -0,0 +1,57 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+/**
+ * The time by which a player must have chosen their move. Players which
+ * search can keep looking until the deadline has passed and then return the
+ * best move they have found; players which don't can ignore it.
+ *
+ * @author John Farrell
+ */
+public final class Deadline {
+    /** No time limit. */
+    public static final Deadline NONE = new Deadline(Long.MAX_VALUE);
+
+    /** The value of System.nanoTime() at the deadline. */
+    private final long end;
+
+    private Deadline(long end) {
+        this.end = end;
+    }
+
+    /** @return a deadline <code>millis</code> milliseconds from now, or NONE if millis is not positive. */
+    public static Deadline after(long millis) {
+        if (millis <= 0) return NONE;
+        return new Deadline(System.nanoTime() + millis * 1000000L);
+    }
+
+    /** @return whether there is a time limit at all. */
+    public boolean isLimited() { return this != NONE; }
+
+    public boolean expired() {
+        return this != NONE && System.nanoTime() - end >= 0;
+    }
+
+    /** @return the number of milliseconds left, which may be negative. */
+    public long remaining() {
+        if (this == NONE) return Long.MAX_VALUE;
+        return (end - System.nanoTime()) / 1000000L;
+    }
+
+    public String toString() {
+        return (this == NONE) ? "no time limit" : remaining() + "ms left";
+    }
+}
@@ -3,28 +3,28 @@ package friendless.games.filler;
 /**
  * Created by john on 15/08/15.
  */
-public class DistanceEvaluator implements Evaluator {
-    private static final int INACCESSIBLE = 50;
+public class DistanceEvaluator implements Evaluator, Tunable {
+    /** What a hex that can't be reached at all counts as in the distance sums. */
+    public static final Parameter INACCESSIBLE = new Parameter("distance.inaccessible", 50, 1, 500);
+    private static final Parameter[] PARAMETERS = { INACCESSIBLE };
+
+    private int inaccessible = INACCESSIBLE.getValue();
+
     @Override
     // TODO - if I choose a particular colour, the opponent can't choose that colour on their next turn making
     // the distance one more for pieces of that colour on their border.
     public int eval(FillerModel model, FillerPlayerSpace space, int[] origins) {
-        int myDistance = 0;
-        for (int d : space.distance) {
-            if (d == FillerModel.UNREACHABLE_DISTANCE) {
-                myDistance += INACCESSIBLE;
-            } else {
-                myDistance += d;
-            }
-        }
-        int hisDistance = 0;
-        for (int d : space.opponentDistance) {
-            if (d == FillerModel.UNREACHABLE_DISTANCE) {
-                hisDistance += INACCESSIBLE;
-            } else {
-                hisDistance += d;
-            }
-        }
+        ScanKernel scan = ScanKernel.get();
+        int myDistance = scan.distanceSum(space.distance, inaccessible);
+        int hisDistance = scan.distanceSum(space.opponentDistance, inaccessible);
         return hisDistance - myDistance;
     }
+
+    public Parameter[] getParameters() { return PARAMETERS.clone(); }
+
+    public int getParameter(int k) { return inaccessible; }
+
+    public void setParameter(int k, int value) {
+        inaccessible = PARAMETERS[k].clamp(value);
+    }
 }
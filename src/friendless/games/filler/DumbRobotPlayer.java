@@ -14,8 +14,6 @@
 
 package friendless.games.filler;
 
-import java.util.*;
-
 /**
  * A base class for robot players which know almost nothing.
  * In particular, these players do not use the model.
@@ -31,18 +29,19 @@ public abstract class DumbRobotPlayer extends AbstractFillerPlayer {
         myColour = 0;
     }
 
-    protected BitSet allUsefulColours() {
-        BitSet b = allColours();
-        if (myColour >= 0) b.clear(myColour);
-        if (otherPlayerColour >= 0) b.clear(otherPlayerColour);
+    protected int allUsefulColours() {
+        int b = allColours();
+        if (myColour >= 0) b &= ~(1 << myColour);
+        if (otherPlayerColour >= 0) b &= ~(1 << otherPlayerColour);
         return b;
     }
 
     /** Choose colours one after another. */
     public int cycleTurn() {
-        int favourite = (myColour + 1) % FillerSettings.NUM_COLOURS;
+        int n = geometry.getNumColours();
+        int favourite = (myColour + 1) % n;
         if (favourite == otherPlayerColour) {
-            favourite = (favourite + 1) % FillerSettings.NUM_COLOURS;
+            favourite = (favourite + 1) % n;
         }
         return favourite;
     }
@@ -55,6 +54,7 @@ public abstract class DumbRobotPlayer extends AbstractFillerPlayer {
     public String getFullName() { return getClass().getName(); }
 
     public int takeTurn(FillerModel model, int otherPlayerColour) {
+        this.geometry = model.getGeometry();
         this.otherPlayerColour = otherPlayerColour;
         myColour = turn();
         if (myColour < 0) {
@@ -34,6 +34,10 @@ class EditTournamentPanel extends JPanel {
     private JRadioButton robin, knock, basho, challenge;
     /** Whether the tournament is continuous or not. */
     private JCheckBox continuous;
+    /** Whether robots' matches are played at once. */
+    private JCheckBox parallel;
+    /** Milliseconds robots may take for each move. */
+    private JSpinner moveTime;
     /** ButtonGroup for the radio buttons. */
     private ButtonGroup ruleGroup;
     private ChoosePlayerList playerList;
@@ -80,6 +84,13 @@ class EditTournamentPanel extends JPanel {
         challenge.addActionListener(std);
         p.add("", rulesPanel);
         p.add(continuous = new JCheckBox(resources.getString("filler.label.continuous")));
+        p.add(parallel = new JCheckBox(resources.getString("filler.label.parallel")));
+        parallel.setToolTipText(resources.getString("filler.string.parallel"));
+        JPanel timePanel = new JPanel(new HCodeLayout("", 4));
+        timePanel.add("", new JLabel(resources.getString("filler.label.movetime")));
+        timePanel.add("", moveTime = new JSpinner(new SpinnerNumberModel(0, 0, 60000, 50)));
+        moveTime.setToolTipText(resources.getString("filler.string.movetime"));
+        p.add("", timePanel);
         p.add("x", tournDesc = new JTextArea(""));
         tournDesc.setBorder(BorderFactory.createTitledBorder(resources.getString("filler.label.description")));
         tournDesc.setEditable(false);
@@ -140,6 +151,8 @@ class EditTournamentPanel extends JPanel {
             rules = new TournamentRules(TournamentRules.CHALLENGE);
         }
         rules.setContinuous(continuous.isSelected());
+        rules.setParallel(parallel.isSelected());
+        rules.setMoveTime(((Number) moveTime.getValue()).intValue());
         return rules;
     }
 
@@ -57,8 +57,24 @@ public class EloRating {
      * Expected chance player[1] will beat player[0]
      */
     public static double expectancy(int[] ratings) {
-        int diff = ratings[0] - ratings[1];
-        return 1.0 / (1.0 + Math.pow(10.0,diff/400.0));
+        return expectedScore(ratings[1] - ratings[0]);
+    }
+
+    /**
+     * @return the expected score (1 for a win, 0 for a loss) of a player
+     * rated <code>diff</code> points more than their opponent.
+     */
+    public static double expectedScore(double diff) {
+        return 1.0 / (1.0 + Math.pow(10.0, -diff/400.0));
+    }
+
+    /**
+     * The opposite of expectedScore.
+     * @return how many points more than their opponent a player who is
+     * expected to score <code>score</code> is rated.
+     */
+    public static double ratingDifference(double score) {
+        return -400.0 * Math.log10(1.0 / score - 1.0);
     }
 
     /**
@@ -0,0 +1,352 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+import java.util.*;
+
+/**
+ * Works out the best move exactly when there are only a few regions left
+ * which either player could still get. A region here is a set of joined
+ * hexes of the same colour which nobody owns yet.
+ * <P>
+ * The regions which only one player can reach will be theirs sooner or
+ * later whatever happens, and none of them is ever next to a region which
+ * both players can reach (or the other player could reach it too). So the
+ * rest of the game is decided by who gets the contested regions, and that
+ * is a small game on a graph of no more than 64 regions, which can be
+ * searched to the end. Each region is a bit in a long: the state is the
+ * set of regions each player has taken, the colours of the players, and
+ * whose turn it is, and states that have been seen before are remembered.
+ * <P>
+ * Every colour a player may choose is tried, the ones which take the most
+ * first so that alpha-beta cuts off sooner. A colour which takes nothing
+ * is tried too, as it can be the best move by stopping the other player
+ * choosing it next, except straight after the other player has taken
+ * nothing, unless there is nothing else to do: otherwise both players
+ * could take nothing for ever, and the search would never end. The answer
+ * is exact for the game with that rule. The game is decided as soon as the hexes one player is sure of getting
+ * are enough to win, so the search stops there. A win is worth WIN less
+ * the number of moves it takes to be sure of it, so the solver chooses the
+ * quickest sure win, or if it must lose, the slowest loss.
+ * <P>
+ * The number of contested regions at which the solver starts is set by the
+ * system property filler.endgame.regions.
+ *
+ * @author John Farrell
+ */
+public class EndgameSolver {
+    /** The system property which sets the most contested regions to solve. */
+    public static final String PROPERTY = "filler.endgame.regions";
+    /** The most contested regions to solve if the property isn't set. */
+    public static final int DEFAULT_REGIONS = 24;
+    /** The value of having won. */
+    public static final int WIN = 1000;
+    /** The most contested regions there can ever be, one per bit of a long. */
+    public static final int MAX_REGIONS = 64;
+    /** Give up if the search looks at more positions than this. */
+    private static final int MAX_NODES = 200000;
+    private static final int TABLE_BITS = 16;
+    private static final int INFINITY = Integer.MAX_VALUE;
+    /** Give up on lines longer than this, which only a bug could make. */
+    private static final int MAX_PLY = 4 * MAX_REGIONS;
+    /** Bits for each colour in a key, enough for the 32 colours a BoardGeometry may have. */
+    private static final int COLOUR_BITS = 5;
+    /** Bits in a key: two colours, the player to move, and whether the last move took nothing. */
+    private static final int KEY_BITS = 2 * COLOUR_BITS + 2;
+    private static final long KEY_MASK = (1L << KEY_BITS) - 1;
+
+    private final BoardGeometry geometry;
+    private final int limit;
+    /** The contested region each hex is in, or -1. */
+    private final int[] regionOf;
+    private final int[] stack;
+    private final int[] typeCount = new int[FillerModel.NUM_TYPES];
+    /* The contested regions of the current problem. */
+    private int numRegions;
+    private final int[] size = new int[MAX_REGIONS];
+    private final long[] neighbours = new long[MAX_REGIONS];
+    /** The regions of each colour. */
+    private final long[] ofColour;
+    /** The regions next to each player's territory at the start. */
+    private final long[] touching = new long[2];
+    /** The hexes each player is sure of, not counting contested regions. */
+    private final int[] base = new int[2];
+    private int toWin;
+    /*
+     * Remembered positions: the two masks, and packed together the key
+     * (passed, player, colour 0, colour 1) in the low KEY_BITS, then the bound, then
+     * the value in the top 32 bits.
+     */
+    private final long[] taken0 = new long[1 << TABLE_BITS];
+    private final long[] taken1 = new long[1 << TABLE_BITS];
+    private final long[] packed = new long[1 << TABLE_BITS];
+    private long nodes;
+    private boolean gaveUp;
+    private int value;
+
+    /** Create a solver for the number of regions given by the system property. */
+    public EndgameSolver(BoardGeometry geometry) {
+        this(geometry, Integer.getInteger(PROPERTY, DEFAULT_REGIONS));
+    }
+
+    /**
+     * @param limit the most contested regions to solve, no more than
+     * MAX_REGIONS. If it is 0 the solver never solves anything.
+     */
+    public EndgameSolver(BoardGeometry geometry, int limit) {
+        this.geometry = geometry;
+        this.limit = Math.max(0, Math.min(limit, MAX_REGIONS));
+        regionOf = new int[geometry.getSize()];
+        stack = new int[geometry.getSize()];
+        ofColour = new long[geometry.getNumColours()];
+    }
+
+    public BoardGeometry getGeometry() { return geometry; }
+
+    /** @return the number of contested regions in the last position looked at. */
+    public int getRegions() { return numRegions; }
+
+    /** @return the number of positions looked at by the last search. */
+    public long getNodes() { return nodes; }
+
+    /**
+     * @return the value of the last position solved for the player to move:
+     * WIN less the number of moves to be sure of winning, 0 for a draw, or
+     * less than 0 for a loss.
+     */
+    public int getValue() { return value; }
+
+    /**
+     * Solve the position if it is small enough.
+     * @param space the types of the hexes, from FillerModel.allocateTypes.
+     * @param origins origins[0] is the origin of the player to move.
+     * @return the best colour for the player to move, or -1 if there are too
+     * many contested regions, the game is already decided, or the search
+     * took too long.
+     */
+    public int solve(FillerModel model, FillerPlayerSpace space, int[] origins) {
+        int[] pieces = model.pieces;
+        int[] counted = space.counted;
+        if (limit == 0 || counted[origins[0]] != FillerModel.MINE || counted[origins[1]] != FillerModel.HIS) {
+            numRegions = 0;
+            return -1;
+        }
+        if (!findRegions(pieces, counted)) return -1;
+        ScanKernel.get().typeCounts(counted, typeCount);
+        base[0] = ScanKernel.countTypes(typeCount, RobotPlayer.types(FillerModel.MINE, FillerModel.REACHABLE,
+                FillerModel.INTERNAL_BORDER));
+        base[1] = ScanKernel.countTypes(typeCount, RobotPlayer.types(FillerModel.HIS, FillerModel.HIS_REACHABLE,
+                FillerModel.HIS_INTERNAL_BORDER));
+        toWin = geometry.getPointsToWin();
+        if (base[0] >= toWin || base[1] >= toWin) return -1;
+        Arrays.fill(packed, 0L);
+        nodes = 0;
+        gaveUp = false;
+        int c0 = pieces[origins[0]];
+        int c1 = pieces[origins[1]];
+        // the root, which is like search but remembers the move
+        int alpha = -INFINITY;
+        int best = -1;
+        for (int c=0; c<ofColour.length; c++) {
+            if (c == c0 || c == c1) continue;
+            long gain = reach(0, 0L, 0L) & ofColour[c];
+            int v = later(-search(1, 0L, gain, c1, c, gain == 0L, 1, -INFINITY, -widen(alpha)));
+            if (gaveUp) return -1;
+            if (v > alpha) {
+                alpha = v;
+                best = c;
+            }
+        }
+        value = alpha;
+        return best;
+    }
+
+    /**
+     * Number the contested regions.
+     * @return false if there are none or too many.
+     */
+    private boolean findRegions(int[] pieces, int[] counted) {
+        int[] first = geometry.first;
+        int[] adjacent = geometry.adjacent;
+        Arrays.fill(regionOf, -1);
+        Arrays.fill(ofColour, 0L);
+        touching[0] = touching[1] = 0L;
+        numRegions = 0;
+        for (int i=0; i<counted.length; i++) {
+            if (!contested(counted[i]) || regionOf[i] >= 0) continue;
+            if (numRegions == limit) return false;
+            int r = numRegions++;
+            int c = pieces[i];
+            size[r] = 0;
+            neighbours[r] = 0L;
+            ofColour[c] |= 1L << r;
+            regionOf[i] = r;
+            int idx = 0;
+            stack[idx++] = i;
+            while (idx > 0) {
+                int p = stack[--idx];
+                size[r]++;
+                for (int k=first[p]; k<first[p+1]; k++) {
+                    int q = adjacent[k];
+                    if (regionOf[q] < 0 && pieces[q] == c && contested(counted[q])) {
+                        regionOf[q] = r;
+                        stack[idx++] = q;
+                    }
+                }
+            }
+        }
+        if (numRegions == 0) return false;
+        for (int p=0; p<counted.length; p++) {
+            int r = regionOf[p];
+            if (r < 0) continue;
+            for (int k=first[p]; k<first[p+1]; k++) {
+                int q = adjacent[k];
+                int s = regionOf[q];
+                if (s >= 0) {
+                    if (s != r) neighbours[r] |= 1L << s;
+                } else if (counted[q] == FillerModel.MINE) {
+                    touching[0] |= 1L << r;
+                } else if (counted[q] == FillerModel.HIS) {
+                    touching[1] |= 1L << r;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean contested(int type) {
+        return type == FillerModel.BORDER || type == FillerModel.SHARED_BORDER ||
+            type == FillerModel.HIS_BORDER || type == FillerModel.FREE;
+    }
+
+    /**
+     * @param mine the contested regions taken by <code>player</code>.
+     * @return the contested regions nobody has taken which are next to the player's territory.
+     */
+    private long reach(int player, long mine, long his) {
+        long result = touching[player];
+        for (long m=mine; m!=0L; m&=m-1) result |= neighbours[Long.numberOfTrailingZeros(m)];
+        return result & ~mine & ~his;
+    }
+
+    /** @return whether the player can take a contested region with some colour. */
+    private boolean canTake(int player, long mine, long his, int myColour, int hisColour) {
+        return (reach(player, mine, his) & ~ofColour[myColour] & ~ofColour[hisColour]) != 0L;
+    }
+
+    /** @return a value one move further away. */
+    private static int later(int v) {
+        if (v > 0) return v - 1;
+        if (v < 0) return v + 1;
+        return 0;
+    }
+
+    private int sizeOf(long regions) {
+        int total = 0;
+        for (long m=regions; m!=0L; m&=m-1) total += size[Long.numberOfTrailingZeros(m)];
+        return total;
+    }
+
+    /**
+     * @param mine the contested regions taken by <code>player</code>, who is to move.
+     * @param his the contested regions taken by the other player.
+     * @param passed whether the other player's last move took nothing.
+     * @return the value of the position for <code>player</code>.
+     */
+    private int search(int player, long mine, long his, int myColour, int hisColour, boolean passed, int ply,
+            int alpha, int beta) {
+        if (++nodes > MAX_NODES || ply > MAX_PLY) gaveUp = true;
+        if (gaveUp) return 0;
+        // the player who just moved may have made sure of winning
+        if (base[1 - player] + sizeOf(his) >= toWin) return -WIN;
+        if (base[player] + sizeOf(mine) >= toWin) return WIN;
+        long all = -1L >>> (64 - numRegions);
+        if ((mine | his) == all) return 0;
+        long m0 = (player == 0) ? mine : his;
+        long m1 = (player == 0) ? his : mine;
+        int c0 = (player == 0) ? myColour : hisColour;
+        int c1 = (player == 0) ? hisColour : myColour;
+        int slot = slot(m0, m1);
+        long key = ((passed ? 2L : 0L) << (2 * COLOUR_BITS)) | ((long) player << (2 * COLOUR_BITS)) |
+            (c0 << COLOUR_BITS) | c1;
+        long data = packed[slot];
+        if (data != 0L && taken0[slot] == m0 && taken1[slot] == m1 && (data & KEY_MASK) == key) {
+            int v = (int) (data >> 32);
+            switch ((int) (data >> KEY_BITS) & 3) {
+                case TranspositionTable.EXACT:
+                    return v;
+                case TranspositionTable.LOWER:
+                    if (v >= beta) return v;
+                    break;
+                case TranspositionTable.UPPER:
+                    if (v <= alpha) return v;
+                    break;
+            }
+        }
+        long reachable = reach(player, mine, his);
+        // taking nothing after the other player took nothing is only allowed if there is no choice
+        boolean mustTake = passed && canTake(player, mine, his, myColour, hisColour);
+        int bound = TranspositionTable.UPPER;
+        int best = -INFINITY;
+        // try the colours which take the most first
+        int tried = 0;
+        while (true) {
+            int move = -1;
+            int most = -1;
+            for (int c=0; c<ofColour.length; c++) {
+                if (c == myColour || c == hisColour || (tried & (1 << c)) != 0) continue;
+                int gain = sizeOf(reachable & ofColour[c]);
+                if (mustTake && gain == 0) continue;
+                if (gain > most) {
+                    most = gain;
+                    move = c;
+                }
+            }
+            if (move < 0) break;
+            tried |= 1 << move;
+            long gain = reachable & ofColour[move];
+            // one move later, so a win is worth a bit less
+            int a = Math.max(alpha, best);
+            int v = later(-search(1 - player, his, mine | gain, hisColour, move, gain == 0L, ply + 1,
+                    -widen(beta), -widen(a)));
+            if (gaveUp) return 0;
+            if (v > best) {
+                best = v;
+                if (best > alpha) bound = TranspositionTable.EXACT;
+                if (best >= beta) {
+                    bound = TranspositionTable.LOWER;
+                    break;
+                }
+            }
+        }
+        taken0[slot] = m0;
+        taken1[slot] = m1;
+        packed[slot] = ((long) best << 32) | ((long) bound << KEY_BITS) | key;
+        return best;
+    }
+
+    /** @return the bound one move further on which corresponds to v here. */
+    private static int widen(int v) {
+        if (v == INFINITY || v == -INFINITY) return v;
+        if (v > 0) return v + 1;
+        if (v < 0) return v - 1;
+        return 0;
+    }
+
+    private static int slot(long m0, long m1) {
+        long h = m0 * 0x9E3779B97F4A7C15L + m1 * 0xC2B2AE3D27D4EB4FL;
+        return (int) (h >>> (64 - TABLE_BITS));
+    }
+}
@@ -14,6 +14,8 @@
 
 package friendless.games.filler;
 
+import java.util.stream.*;
+
 /**
  * An interface to be implemented by something which can evaluate the
  * goodness of a particular board position.
@@ -28,4 +30,23 @@ public interface Evaluator {
      * @param space counted is filled in already.
      */
     int eval(FillerModel model, FillerPlayerSpace space, int[] origins);
+
+    /**
+     * Evaluate the positions after the player to move chooses each of the
+     * colours in a set. The default is to make each position and evaluate
+     * it with eval, all of them at once in the SearchPool. An evaluator which
+     * can share work between positions that differ only in the colour of
+     * one territory can override this.
+     *
+     * @param children the positions, already given their parent.
+     * @param colours the set of colours to try, bit c for colour c.
+     * @param scores scores[c] is set to the value of choosing c, for each c in the set.
+     */
+    default void evalChildren(ChildPositions children, int colours, int[] scores) {
+        int[] origins = children.getOrigins();
+        SearchPool.invoke(() -> IntStream.range(0, scores.length).
+                filter(c -> (colours & (1 << c)) != 0).
+                parallel().
+                forEach(c -> scores[c] = eval(children.child(c), children.space(c), origins)));
+    }
 }
@@ -9,20 +9,14 @@ public class ExpandEvaluator implements Evaluator {
         int[] counted = space.counted;
         for (int i=0; i<counted.length; i++) {
             if (counted[i] == FillerModel.BORDER || counted[i] == FillerModel.SHARED_BORDER) {
-                int dist = sideDistance(origins[0], i);
+                int dist = sideDistance(model.getGeometry(), origins[0], i);
                 if (dist > furthest) furthest = dist;
             }
         }
         return furthest;
     }
 
-    protected static int sideDistance(int p1, int p2) {
-        return Math.abs(getX(p1)-getX(p2)) + Math.abs(getY(p1)-getY(p2));
+    protected static int sideDistance(BoardGeometry geometry, int p1, int p2) {
+        return Math.abs(geometry.getX(p1)-geometry.getX(p2)) + Math.abs(geometry.getY(p1)-geometry.getY(p2));
     }
-
-    /** Get the the X coordinate of piece <code>i</code>. */
-    protected static int getX(int i) { return FillerModel.getX(i); }
-
-    /** Get the the Y coordinate of piece <code>i</code>. */
-    protected static int getY(int i) { return FillerModel.getY(i); }
 }
@@ -16,6 +16,7 @@ package friendless.games.filler;
 
 import java.awt.*;
 import java.awt.event.*;
+import java.text.*;
 import java.util.*;
 import javax.swing.*;
 import friendless.awt.SplashScreen;
@@ -77,6 +78,8 @@ public final class Filler implements Runnable {
         SplashScreen splash = SplashScreen.show(splashIcon);
         EloRating.setResources(resources);
         Tournaments.setResources(resources);
+        String seed = String.valueOf(Seeds.getMasterSeed());
+        System.out.println(MessageFormat.format(resources.getString("filler.string.masterseed"), seed));
         Filler f = new Filler();
         f.run();
         splash.close();
@@ -19,6 +19,7 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.text.MessageFormat;
+import java.util.SplittableRandom;
 import javax.imageio.ImageIO;
 import javax.swing.*;
 
@@ -63,9 +64,11 @@ public class FillerBoard extends JComponent {
     /**
      * Restart the board in preparation for a new game.
      * @param remoteGame True if this is a game against a remote player.
+     * @param rng where the colours of the board come from.
      */
-    public void restart(boolean remoteGame) {
-        model.randomFill(remoteGame);
+    public void restart(boolean remoteGame, SplittableRandom rng) {
+        model.randomFill(remoteGame, rng);
+        model.trackRegions();
         off = null;
         repaint();
     }
@@ -123,22 +126,18 @@ public class FillerBoard extends JComponent {
     }
 
     /**
+     * Show that the territory in <code>space</code> has changed colour to
+     * <code>newColour</code>. The GameEngine has already changed the model.
      * @param fast whether to try to speed things up by skipping painting.
      * Useful in robot tournaments.
      */
-    public int changeColourCountScore(FillerSpace space, int newColour, int origin, boolean fast) {
+    public void paintTerritory(FillerSpace space, int newColour, boolean fast) {
         BufferedImage img = off;
         if (img == null) img = resetOffscreenImage();
-        boolean[] captured = space.captured;
         Graphics goff = img.getGraphics();
-        // only have to change myColour of pieces already belonging to us
-        int[] pieces = model.pieces;
-        for (int i=0; i<captured.length; i++) {
-            if (captured[i]) {
-                pieces[i] = newColour;
-                drawHexCentre(goff, FillerSettings.colours[newColour], i);
-            }
-        }
+        int[] territory = space.territory;
+        Color c = FillerSettings.colours[newColour];
+        for (int k=0; k<space.territorySize; k++) drawHexCentre(goff, c, territory[k]);
         goff.dispose();
         writeImageFile(img);
         if (fast) {
@@ -146,50 +145,6 @@ public class FillerBoard extends JComponent {
         } else {
             repaint();
         }
-        return countScore(origin,space);
-    }
-
-    public int countScore(int origin, FillerSpace space) {
-        int score = 1;
-        int colour = model.pieces[origin];
-        int idx = 0;
-        int i, j;
-        // copy pointers from space into local variables
-        space.reset();
-        boolean[] captured = space.captured;
-        int[] counted = space.counted;
-        boolean[] listed = space.listed;
-        int[] border = space.border;
-        // initialise arrays
-        listed[0] = true;
-        int[] ns = FillerModel.neighbours(origin);
-        for (int q : ns) {
-            border[idx++] = q;
-        }
-        counted[origin] = FillerModel.MINE;
-        captured[origin] = true;
-        // process the positions on the border
-        int[] pieces = model.pieces;
-        while (idx > 0) {
-            int p = border[--idx];
-            if (counted[p] != FillerModel.VACANT) {
-                continue;
-            } else if (pieces[p] == colour) {
-                counted[p] = FillerModel.MINE;
-                score++;
-                captured[p] = true;
-                ns = FillerModel.neighbours(p);
-                for (int q : ns) {
-                    if (!listed[q]) {
-                        listed[q] = true;
-                        border[idx++] = q;
-                    }
-                }
-            } else {
-                counted[p] = FillerModel.BORDER;
-            }
-        }
-        return score;
     }
 
     /**
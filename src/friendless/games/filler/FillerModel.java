@@ -61,14 +61,13 @@ public class FillerModel {
     /** Uncalculated distance. */
     public static final int UNKNOWN_DISTANCE = -2;
 
-    /** Maximum neighbours that a cell could have. */
-    private static final int MAX_NEIGHBOURS = 6;
-    private static int[] x, y;
+    /** Neighbours of each hex on the standard board, for the static helpers. */
     private static int[][] neighs;
-    private static final Random rng = new Random();
     public static final BitSet MUST_BE_MINE = new BitSet(NUM_TYPES);
     public static final BitSet MUST_BE_HIS = new BitSet(NUM_TYPES);
     public static final BitSet MUST_BE_FREE = new BitSet(NUM_TYPES);
+    /** The type each type had before it was known who could reach it. */
+    private static final int[] BASE_TYPE = new int[NUM_TYPES];
 
     static {
         MUST_BE_FREE.set(HIS_BORDER);
@@ -81,216 +80,165 @@ public class FillerModel {
         MUST_BE_FREE.set(FREE);
         MUST_BE_MINE.set(INTERNAL_BORDER);
         MUST_BE_HIS.set(HIS_INTERNAL_BORDER);
-        final int size = FillerSettings.SIZE;
-        final int rows = FillerSettings.ROWS;
-        x = new int[size];
-        y = new int[size];
-        for (int i=0; i<size; i++) {
-            if (((i/rows)%2 == 0) && (i%rows == 0)) {
-                x[i] = -1;
-                y[i] = -1;
-            } else {
-                x[i] = i/rows;
-                y[i] = i%rows;
-            }
-        }
-        //
-        neighs = new int[size][];
-        for (int i=0; i<size; i++) {
-            if (x[i] >= 0) neighs[i] = calcNeighbours(i);
+        for (int t=0; t<NUM_TYPES; t++) BASE_TYPE[t] = t;
+        BASE_TYPE[REACHABLE] = VACANT;
+        BASE_TYPE[HIS_REACHABLE] = VACANT;
+        BASE_TYPE[FREE] = VACANT;
+        BASE_TYPE[INTERNAL_BORDER] = BORDER;
+        BASE_TYPE[HIS_INTERNAL_BORDER] = HIS_BORDER;
+        BoardGeometry g = BoardGeometry.STANDARD;
+        neighs = new int[g.getSize()][];
+        for (int i=0; i<neighs.length; i++) {
+            if (g.valid(i)) neighs[i] = g.neighbours(i);
         }
     }
 
-    /**
-     * Calculate what the neighbours of cell <code>i</code> are.
-     * Put them into the first elements of the array <code>ps</code>.
-     * Fill the remaining spaces with the value <code>NO_NEIGHBOUR</code>.
+    /*
+     * The following helpers are for the standard board. Code which might be
+     * used on other boards should ask the model for its geometry instead.
      */
-    private static int[] calcNeighbours(int i) {
-        final int columns = FillerSettings.COLUMNS;
-        final int rows = FillerSettings.ROWS;
-        int xi = x[i];
-        int yi = y[i];
-        int idx = 0;
-        int[] ps = new int[MAX_NEIGHBOURS];
-        // to the right
-        if (xi < columns-2) ps[idx++] = makeIndex(xi+2, yi);
-        // to the left
-        if (xi > 1) ps[idx++] = makeIndex(xi-2, yi);
-        if (xi % 2 == 0) {
-            if (xi > 0) {
-                // above and below to the left
-                ps[idx++] = makeIndex(xi-1, yi-1);
-                ps[idx++] = makeIndex(xi-1, yi);
-            }
-            if (xi < columns-1) {
-                // above and below to the right
-                ps[idx++] = makeIndex(xi+1, yi-1);
-                ps[idx++] = makeIndex(xi+1, yi);
-            }
-        } else {
-            if (yi > 0) {
-                // two above
-                ps[idx++] = makeIndex(xi-1, yi);
-                ps[idx++] = makeIndex(xi+1, yi);
-            }
-            if (yi < rows-1) {
-                // two below
-                ps[idx++] = makeIndex(xi-1, yi+1);
-                ps[idx++] = makeIndex(xi+1, yi+1);
-            }
-        }
-        int[] result = new int[idx];
-        System.arraycopy(ps, 0, result, 0, idx);
-        return result;
-    }
 
-    public static int makeIndex(int x, int y) { return x * FillerSettings.ROWS + y; }
+    public static int makeIndex(int x, int y) { return BoardGeometry.STANDARD.makeIndex(x, y); }
 
-    public static int getX(int i) { return x[i]; }
+    public static int getX(int i) { return BoardGeometry.STANDARD.getX(i); }
 
-    public static int getY(int i) { return y[i]; }
+    public static int getY(int i) { return BoardGeometry.STANDARD.getY(i); }
 
-    public static boolean valid(int i) { return (x[i] >= 0); }
+    public static boolean valid(int i) { return BoardGeometry.STANDARD.valid(i); }
 
     public static int[] neighbours(int i) { return neighs[i]; }
 
-    public static boolean isPerimeter(int i) {
-        int[] ns = neighs[i];
-        return ns.length < MAX_NEIGHBOURS;
-    }
+    public static boolean isPerimeter(int i) { return BoardGeometry.STANDARD.isPerimeter(i); }
 
     /**
-     * Update the <code>reachable</code> array to determine whether each
-     * piece can ever be reached by me.
+     * Build a calculation of who owns what and who has what influence over what.
+     * <P>
+     * This is done in two traversals. The first fills in both players'
+     * territories and the regions on their borders, and lists the border
+     * hexes. The second spreads out from the border hexes to find who can
+     * ever reach each hex, giving each hex its final type as soon as that is
+     * known, so each hex is only looked at a few times.
      */
-    static void allocateFree(FillerPlayerSpace space, int myBorder, boolean[] reachable) {
-        space.resetListed();
+    static void allocateTypes(FillerModel model, int[] origins, FillerPlayerSpace space) {
+        if (model.regions != null && model.regions.allocateTypes(origins, space)) return;
+        space.regions = null;
+        // copy pointers from space into local variables
         int[] counted = space.counted;
-        boolean[] listed = space.listed;
-        int[] border = space.border;
-        // build up the list of positions on the border
+        boolean[] reachable = space.reachable;
+        boolean[] hisReachable = space.hisReachable;
+        int[] pieces = model.pieces;
+        int[] first = model.geometry.first;
+        int[] adjacent = model.geometry.adjacent;
+        // stack for filling in the territories
+        int[] stack = space.border;
+        // hexes to spread out from. A hex goes on here at most twice for
+        // each player, which the deque is big enough for.
+        int[] reach = space.deque;
+        int n = 0;
+        space.resetCounted();
+        space.resetReachable();
+        // his territory, and the whole of each region which touches it
         int idx = 0;
-        for (int i=0; i<FillerSettings.SIZE; i++) {
-            if (counted[i] == myBorder || counted[i] == SHARED_BORDER) {
-                listed[i] = true;
-                border[idx++] = i;
+        int colour = pieces[origins[1]];
+        counted[origins[1]] = HIS;
+        stack[idx++] = origins[1];
+        while (idx > 0) {
+            int p = stack[--idx];
+            boolean his = counted[p] == HIS;
+            for (int k=first[p]; k<first[p+1]; k++) {
+                int q = adjacent[k];
+                if (counted[q] != VACANT) continue;
+                if (his && pieces[q] == colour) {
+                    counted[q] = HIS;
+                } else if (his || pieces[q] == pieces[p]) {
+                    counted[q] = HIS_BORDER;
+                    hisReachable[q] = true;
+                    reach[n++] = q;
+                } else {
+                    continue;
+                }
+                stack[idx++] = q;
             }
         }
-        // process the positions on the border
-        int[] ns;
+        // my territory, and the regions which touch it. Where my border is
+        // also his border, only the hexes right next to me are shared.
+        colour = pieces[origins[0]];
+        counted[origins[0]] = MINE;
+        hisReachable[origins[0]] = false;
+        stack[idx++] = origins[0];
         while (idx > 0) {
-            // take a point which is currently on the border
-            int p = border[--idx];
-            switch (counted[p]) {
-                case VACANT:
-                case BORDER:
-                case SHARED_BORDER:
-                case HIS_BORDER:
-                    reachable[p] = true;
-                    ns = neighs[p];
-                    for (int q : ns) {
-                        if (!listed[q]) {
-                            listed[q] = true;
-                            border[idx++] = q;
-                        }
+            int p = stack[--idx];
+            int cq;
+            if (counted[p] == MINE) {
+                for (int k=first[p]; k<first[p+1]; k++) {
+                    int q = adjacent[k];
+                    cq = counted[q];
+                    if (cq != VACANT && cq != HIS_BORDER) continue;
+                    if (pieces[q] == colour) {
+                        counted[q] = MINE;
+                        hisReachable[q] = false;
+                        stack[idx++] = q;
+                    } else {
+                        counted[q] = (cq == HIS_BORDER) ? SHARED_BORDER : BORDER;
+                        reachable[q] = true;
+                        reach[n++] = q;
+                        if (cq == VACANT) stack[idx++] = q;
                     }
-                    break;
+                }
+            } else {
+                for (int k=first[p]; k<first[p+1]; k++) {
+                    int q = adjacent[k];
+                    if (counted[q] == VACANT && pieces[q] == pieces[p]) {
+                        counted[q] = BORDER;
+                        reachable[q] = true;
+                        reach[n++] = q;
+                        stack[idx++] = q;
+                    }
+                }
             }
         }
-    }
-
-    /**
-     * Assuming that I am the player who started at <code>origin</code>,
-     * fill in details in <code>space</code> to mark where my pieces and my
-     * border are. As this filling may have already been done for the other player,
-     * it's possible that locations on my border may already be marked as being
-     * on his border. In those cases, change them to SHARED_BORDER.
-     */
-    protected static void allocate(FillerModel model, int origin, FillerPlayerSpace space, int mine, int myBorder) {
-        int hisBorder = BORDER + HIS_BORDER - myBorder;
-        int his = MINE + HIS - mine;
-        space.resetListed();
-        // counted is the types of all locations on the board.
-        int[] counted = space.counted;
-        // listed is whether we have already visited this piece.
-        boolean[] listed = space.listed;
-        // border is used as a stack of ints, with idx being the stack's height
-        // each value in border is the position of a hex
-        int[] border = space.border;
-        int colour = model.pieces[origin];
-        // origin is mine, its neighbours are the original border
-        counted[origin] = mine;
-        listed[origin] = true;
-        int idx = 0;
-        for (int q : neighs[origin]) {
-            listed[q] = true;
-            border[idx++] = q;
+        for (int k=0; k<n; k++) {
+            int p = reach[k];
+            counted[p] = reachType(BASE_TYPE[counted[p]], reachable[p], hisReachable[p]);
         }
-        // process the positions on the border
-        while (idx > 0) {
-            // take a point which is currently on the border
-            int p = border[--idx];
-            int thisPiece = counted[p];
-            if (thisPiece == VACANT || thisPiece == hisBorder) {
-                if (model.pieces[p] == colour) {
-                    // on the border and my myColour must be mine
-                    counted[p] = mine;
-                    for (int q : neighs[p]) {
-                        if (!listed[q]) {
-                            listed[q] = true;
-                            border[idx++] = q;
-                        }
-                    }
-                } else if (thisPiece == hisBorder) {
-                    // on my border and his border must be shared border
-                    counted[p] = SHARED_BORDER;
-                } else {
-                    // on the border and another myColour but not his border must be my border
-                    counted[p] = myBorder;
-                    for (int q : neighs[p]) {
-                        if (!listed[q] && (model.pieces[p] == model.pieces[q]) && (counted[q] != his)) {
-                            listed[q] = true;
-                            border[idx++] = q;
-                        }
-                    }
+        // spread out from the borders through everything neither of us owns
+        while (n > 0) {
+            int p = reach[--n];
+            int t = counted[p];
+            if (t == MINE || t == HIS) continue;
+            boolean mine = reachable[p];
+            boolean his = hisReachable[p];
+            for (int k=first[p]; k<first[p+1]; k++) {
+                int q = adjacent[k];
+                int cq = counted[q];
+                if (cq == MINE || cq == HIS) continue;
+                boolean newMine = mine && !reachable[q];
+                boolean newHis = his && !hisReachable[q];
+                if (newMine || newHis) {
+                    if (newMine) reachable[q] = true;
+                    if (newHis) hisReachable[q] = true;
+                    counted[q] = reachType(BASE_TYPE[cq], reachable[q], hisReachable[q]);
+                    reach[n++] = q;
                 }
             }
         }
     }
 
     /**
-     * Build a calculation of who owns what and who has what influence over what.
+     * @param type the type of a hex before we knew who could reach it.
+     * @return the type of the hex, given who can reach it.
      */
-    static void allocateTypes(FillerModel model, int[] origins, FillerPlayerSpace space) {
-        // copy pointers from space into local variables
-        int[] counted = space.counted;
-        boolean[] reachable = space.reachable;
-        boolean[] hisReachable = space.hisReachable;
-        space.reset();
-        space.resetReachable();
-        allocate(model, origins[1], space, HIS, HIS_BORDER);
-        allocate(model, origins[0], space, MINE, BORDER);
-        allocateFree(space, BORDER, reachable);
-        allocateFree(space, HIS_BORDER, hisReachable);
-        for (int i=0; i<reachable.length; i++) {
-            if (reachable[i]) {
-                if (!hisReachable[i]) {
-                    if (counted[i] == BORDER) {
-                        counted[i] = INTERNAL_BORDER;
-                    } else {
-                        counted[i] = REACHABLE;
-                    }
-                } else if (counted[i] == VACANT) {
-                    counted[i] = FREE;
-                }
-            } else if (hisReachable[i]) {
-                if (counted[i] == HIS_BORDER) {
-                    counted[i] = HIS_INTERNAL_BORDER;
-                } else {
-                    counted[i] = HIS_REACHABLE;
-                }
-            }
+    private static int reachType(int type, boolean mine, boolean his) {
+        switch (type) {
+            case BORDER:
+                return his ? BORDER : INTERNAL_BORDER;
+            case HIS_BORDER:
+                return mine ? HIS_BORDER : HIS_INTERNAL_BORDER;
+            case VACANT:
+                if (mine) return his ? FREE : REACHABLE;
+                return his ? HIS_REACHABLE : VACANT;
+            default:
+                return type;
         }
     }
 
@@ -300,54 +248,11 @@ public class FillerModel {
      * the state of the <code>model</code>.
      */
     static void allocateDistance(FillerModel model, FillerPlayerSpace space) {
-        int[] counted = space.counted;
-        int[] distance = space.distance;
-        int[] border = space.border;
-        int[] pieces = model.pieces;
-        space.resetListed();
-        boolean[] listed = space.listed;
-        int idx = 0;
-        // allocate the distances we know immediately
-        for (int i=0; i<distance.length; i++) {
-            int ci = counted[i];
-            if (!valid(i)) {
-                distance[i] = UNREACHABLE_DISTANCE;
-            } else if (MUST_BE_MINE.get(ci)) {
-                distance[i] = NO_DISTANCE;
-            } else if (MUST_BE_HIS.get(ci)) {
-                distance[i] = UNREACHABLE_DISTANCE;
-            } else if (ci == BORDER || ci == SHARED_BORDER) {
-                distance[i] = 1;
-                // remember where the border is
-                border[idx++] = i;
-                listed[i] = true;
-            } else {
-                distance[i] = UNKNOWN_DISTANCE;
-            }
-        }
-        // figure out the unknown distances
-        while (idx > 0) {
-            // take a point which is currently on the border
-            int p = border[--idx];
-            listed[p] = false;
-            int distp = distance[p];
-            for (int q : neighs[p]) {
-                int distq = distance[q];
-                if (distq == UNREACHABLE_DISTANCE || distq == NO_DISTANCE) {
-                    continue;
-                }
-                // expected distance to q
-                int exdistq = (pieces[q] == pieces[p]) ? distp : (distp + 1);
-                if (distq == UNKNOWN_DISTANCE || exdistq < distq) {
-                    // found a new or shorter route to q
-                    distance[q] = exdistq;
-                    if (!listed[q]) {
-                        border[idx++] = q;
-                        listed[q] = true;
-                    }
-                }
-            }
+        if (space.regions != null && space.regions == model.regions) {
+            model.regions.allocateDistance(space);
+            return;
         }
+        zeroOneDistances(model, space, true, false);
     }
 
     /**
@@ -356,74 +261,193 @@ public class FillerModel {
      * the state of the <code>model</code>.
      */
     static void allocateOpponentDistance(FillerModel model, FillerPlayerSpace space) {
+        if (space.regions != null && space.regions == model.regions) {
+            model.regions.allocateOpponentDistance(space);
+            return;
+        }
+        zeroOneDistances(model, space, false, true);
+    }
+
+    /**
+     * Does allocateDistance and allocateOpponentDistance together, in one
+     * pass over the board.
+     */
+    static void allocateDistances(FillerModel model, FillerPlayerSpace space) {
+        if (space.regions != null && space.regions == model.regions) {
+            model.regions.allocateDistance(space);
+            model.regions.allocateOpponentDistance(space);
+            return;
+        }
+        zeroOneDistances(model, space, true, true);
+    }
+
+    /**
+     * Moving to a neighbour of the same colour costs no turns, and moving to
+     * a neighbour of a different colour costs one turn, so the distances can
+     * be found with a breadth first search which puts free moves on the front
+     * of the queue and costly moves on the back. Each hex is then taken off
+     * the queue at most twice, no matter what the board looks like.
+     * <P>
+     * When both maps are wanted the queue holds hexes for both players, with
+     * the player in the bottom bit.
+     */
+    private static void zeroOneDistances(FillerModel model, FillerPlayerSpace space, boolean mine, boolean his) {
         int[] counted = space.counted;
-        int[] distance = space.opponentDistance;
-        int[] border = space.border;
         int[] pieces = model.pieces;
-        space.resetListed();
-        boolean[] listed = space.listed;
-        int idx = 0;
+        int[][] distances = { space.distance, space.opponentDistance };
+        BoardGeometry geometry = model.geometry;
+        int[] first = geometry.first;
+        int[] adjacent = geometry.adjacent;
+        int[] deque = space.deque;
+        int mask = deque.length - 1;
+        int head = 0;
+        int tail = 0;
         // allocate the distances we know immediately
-        for (int i=0; i<distance.length; i++) {
+        for (int i=0; i<counted.length; i++) {
             int ci = counted[i];
-            if (!valid(i)) {
-                distance[i] = UNREACHABLE_DISTANCE;
-            } else if (MUST_BE_MINE.get(ci)) {
-                distance[i] = UNREACHABLE_DISTANCE;
-            } else if (MUST_BE_HIS.get(ci)) {
-                distance[i] = NO_DISTANCE;
-            } else if (ci == HIS_BORDER || ci == SHARED_BORDER) {
-                distance[i] = 1;
-                // remember where the border is
-                border[idx++] = i;
-                listed[i] = true;
-            } else {
-                distance[i] = UNKNOWN_DISTANCE;
+            if (mine) {
+                int d = initialDistance(geometry.valid(i), ci, MUST_BE_MINE, MUST_BE_HIS, BORDER);
+                space.distance[i] = d;
+                if (d == 1) deque[tail++] = i << 1;
+            }
+            if (his) {
+                int d = initialDistance(geometry.valid(i), ci, MUST_BE_HIS, MUST_BE_MINE, HIS_BORDER);
+                space.opponentDistance[i] = d;
+                if (d == 1) deque[tail++] = (i << 1) | 1;
             }
         }
         // figure out the unknown distances
-        while (idx > 0) {
-            // take a point which is currently on the border
-            int p = border[--idx];
-            listed[p] = false;
+        while (head != tail) {
+            int node = deque[head];
+            head = (head + 1) & mask;
+            int p = node >>> 1;
+            int[] distance = distances[node & 1];
             int distp = distance[p];
-            int[] ns = neighs[p];
-            for (int q : ns) {
+            int colour = pieces[p];
+            for (int k=first[p]; k<first[p+1]; k++) {
+                int q = adjacent[k];
                 int distq = distance[q];
                 if (distq == UNREACHABLE_DISTANCE || distq == NO_DISTANCE) {
                     continue;
                 }
-                // expected distance to q
-                int exdistq = (pieces[q] == pieces[p]) ? distp : (distp + 1);
-                if (distq == UNKNOWN_DISTANCE || exdistq < distq) {
-                    // found a new or shorter route to q
-                    distance[q] = exdistq;
-                    if (!listed[q]) {
-                        border[idx++] = q;
-                        listed[q] = true;
+                if (pieces[q] == colour) {
+                    if (distq == UNKNOWN_DISTANCE || distp < distq) {
+                        distance[q] = distp;
+                        head = (head - 1) & mask;
+                        deque[head] = (q << 1) | (node & 1);
                     }
+                } else if (distq == UNKNOWN_DISTANCE || distp + 1 < distq) {
+                    distance[q] = distp + 1;
+                    deque[tail] = (q << 1) | (node & 1);
+                    tail = (tail + 1) & mask;
                 }
             }
         }
     }
 
+    /**
+     * @return the distance of a hex from the territory described by
+     * <code>owned</code>, if we can tell without searching.
+     */
+    private static int initialDistance(boolean valid, int ci, BitSet owned, BitSet unreachable, int borderType) {
+        if (!valid) {
+            return UNREACHABLE_DISTANCE;
+        } else if (owned.get(ci)) {
+            return NO_DISTANCE;
+        } else if (unreachable.get(ci)) {
+            return UNREACHABLE_DISTANCE;
+        } else if (ci == borderType || ci == SHARED_BORDER) {
+            return 1;
+        } else {
+            return UNKNOWN_DISTANCE;
+        }
+    }
+
+    /** The shape of the board. */
+    final BoardGeometry geometry;
     int[] pieces;
+    /** The regions of this model, if we are keeping track of them. */
+    RegionGraph regions;
+    /** The Zobrist hash of pieces, if hashKnown. */
+    private long hash;
+    private boolean hashKnown;
 
+    /** Create an empty standard board. */
     public FillerModel() {
-        this.pieces = new int[FillerSettings.SIZE];
+        this(BoardGeometry.STANDARD);
+    }
+
+    /** Create an empty board of the given shape. */
+    public FillerModel(BoardGeometry geometry) {
+        this.geometry = geometry;
+        this.pieces = new int[geometry.getSize()];
     }
 
+    /** Create a standard board with a copy of <code>pieces</code>. */
     public FillerModel(int[] pieces, String name) {
-        if (pieces.length != FillerSettings.SIZE) {
+        this(BoardGeometry.STANDARD, pieces);
+    }
+
+    /** Create a board of the given shape with a copy of <code>pieces</code>. */
+    public FillerModel(BoardGeometry geometry, int[] pieces) {
+        if (pieces.length != geometry.getSize()) {
             throw new IllegalArgumentException("pieces wrong length");
         }
+        this.geometry = geometry;
         this.pieces = pieces.clone();
     }
 
+    /**
+     * Create a board with a copy of <code>pieces</code>, whose Zobrist hash
+     * the caller has already worked out.
+     */
+    FillerModel(BoardGeometry geometry, int[] pieces, long hash) {
+        this(geometry, pieces);
+        this.hash = hash;
+        this.hashKnown = true;
+    }
+
+    /** Create a board with the colours in <code>board</code>. */
+    public FillerModel(CompactBoard board) {
+        this(board.getGeometry());
+        board.unpack(pieces);
+    }
+
+    public BoardGeometry getGeometry() { return geometry; }
+
+    /** @return a copy of the colours of this board packed two hexes to a byte. */
+    public CompactBoard toCompact() {
+        return new CompactBoard(this);
+    }
+
+    /**
+     * @return the Zobrist hash of the colours of the hexes. It is worked out
+     * when first asked for, and then kept up to date by colourChanged.
+     */
+    public long getHash() {
+        if (!hashKnown) {
+            hash = Zobrist.hash(this);
+            hashKnown = true;
+        }
+        return hash;
+    }
+
+    public int hashCode() {
+        long h = getHash();
+        return (int) (h ^ (h >>> 32));
+    }
+
+    public boolean equals(Object o) {
+        if (!(o instanceof FillerModel)) return false;
+        FillerModel m = (FillerModel) o;
+        return geometry == m.geometry && getHash() == m.getHash() && Arrays.equals(pieces, m.pieces);
+    }
+
     /**
      * @param remoteGame True if this is a game against a remote player.
+     * @param rng where the colours come from, unless the other player sends the board.
      */
-    void randomFill(boolean remoteGame) {
+    void randomFill(boolean remoteGame, SplittableRandom rng) {
         if (remoteGame && !RemoteConnection.getInstance().isServer()) {
             // This is the client side of a game against a remote player.
             // We will wait for the NewGame message which carries the
@@ -440,9 +464,7 @@ public class FillerModel {
         } else {
             // This is not a remote game or we are the server side of
             // a remote game.
-            for (int i=0; i<pieces.length; i++) {
-                pieces[i] = (valid(i)) ? rng.nextInt(FillerSettings.NUM_COLOURS) : -1;
-            }
+            randomFill(rng);
             if (remoteGame) {
                 try {
                     NewGameMessage msg = new NewGameMessage(pieces);
@@ -455,9 +477,67 @@ public class FillerModel {
     }
 
     public void setPieces(int[] pieces) {
-        if (pieces.length != FillerSettings.SIZE) {
+        if (pieces.length != geometry.getSize()) {
             throw new IllegalArgumentException("pieces wrong length");
         }
         this.pieces = pieces.clone();
+        regions = null;
+        hashKnown = false;
+    }
+
+    /**
+     * Copy <code>pieces</code> into this board without making a new array,
+     * for models which are used over and over again.
+     * @param hash the Zobrist hash of the pieces.
+     */
+    void copyPieces(int[] pieces, long hash) {
+        System.arraycopy(pieces, 0, this.pieces, 0, this.pieces.length);
+        regions = null;
+        this.hash = hash;
+        hashKnown = true;
+    }
+
+    /**
+     * Unpack <code>board</code> into this model without making a new array.
+     * @param hash the Zobrist hash of the board.
+     */
+    void copyPieces(CompactBoard board, long hash) {
+        board.unpack(pieces);
+        regions = null;
+        this.hash = hash;
+        hashKnown = true;
+    }
+
+    /**
+     * Colour the board at random, taking the colours from <code>rng</code>,
+     * so that the same board can be made again from the same seed.
+     */
+    void randomFill(SplittableRandom rng) {
+        regions = null;
+        hashKnown = false;
+        for (int i=0; i<pieces.length; i++) {
+            pieces[i] = (geometry.valid(i)) ? rng.nextInt(geometry.getNumColours()) : -1;
+        }
+    }
+
+    /**
+     * Start keeping track of the regions of same-coloured hexes, so that the
+     * allocate* calculations can be done on regions rather than on hexes.
+     * This is worthwhile for the model that the game is played on, but not
+     * for temporary models.
+     */
+    void trackRegions() {
+        regions = new RegionGraph(this);
+    }
+
+    /**
+     * Notification that the player who started at <code>origin</code> has
+     * changed the colour of their territory from <code>oldColour</code> to
+     * <code>colour</code>. The pieces must already have been changed.
+     * @param hexKeys the xor of the Zobrist hex keys of the territory.
+     */
+    void colourChanged(int origin, int oldColour, int colour, long hexKeys) {
+        if (regions != null) regions.changeColour(origin, colour);
+        if (hashKnown) hash ^= Zobrist.colourKey(hexKeys, oldColour) ^ Zobrist.colourKey(hexKeys, colour);
     }
 }
@@ -61,6 +61,12 @@ public final class FillerPanel extends JPanel implements KeyListener {
     protected CardLayout cards;
     protected JPanel cardPanel;
     protected ResourceBundle resources;
+    /** Milliseconds robots may take for each move, or 0 for no limit. */
+    protected volatile int moveTime;
+    /** Plays tournament matches between robots at once, made when it's first needed. */
+    private MatchRunner runner;
+    /** Where the seeds of games which aren't in a tournament come from. */
+    private final SplittableRandom gameSeeds = Seeds.split();
 
     public FillerPanel(PlayerWrappers players, ResourceBundle resources) {
         this.players = players;
@@ -158,6 +164,13 @@ public final class FillerPanel extends JPanel implements KeyListener {
 
     public FillerBoard getBoard() { return board; }
 
+    /** Give robots <code>moveTime</code> milliseconds for each move, or no limit if it is 0. */
+    public void setMoveTime(int moveTime) {
+        this.moveTime = moveTime;
+    }
+
+    public int getMoveTime() { return moveTime; }
+
     /** Cancel a tournament in progress. */
     protected void cancel() {
         cancelled = true;
@@ -216,7 +229,7 @@ public final class FillerPanel extends JPanel implements KeyListener {
         for (int i=0; i<2; i++) {
             opponents[i] = (PlayerWrapper) playerNames[i].getSelectedItem();
         }
-        int[] scores = play(opponents);
+        int[] scores = play(opponents, gameSeeds.nextLong());
         String winner = (scores[0] > scores[1]) ? opponents[0].getName() : opponents[1].getName();
         String h2h = resources.getString("filler.string.h2h") + ": " +
             PlayerRatings.getHeadToHead(opponents);
@@ -226,13 +239,14 @@ public final class FillerPanel extends JPanel implements KeyListener {
     }
 
     /**
-     * Play a tournament match between the given pair of players.
+     * Play a tournament match between the given pair of players, on a board
+     * made from <code>seed</code>.
      * @return the scores of the players in the same order as they are in
      * <code>players</code>.
      * This method sets up the combo boxes before the game, and displays
      * the victory details afterwards.
      */
-    public int[] tournamentMatch(PlayerWrapper[] players) {
+    public int[] tournamentMatch(PlayerWrapper[] players, long seed) {
         if (players[0] == null) {
             return new int[] { -1, 0 };
         } else if (players[1] == null) {
@@ -242,7 +256,64 @@ public final class FillerPanel extends JPanel implements KeyListener {
         playerNames[1].setSelectedItem(players[1]);
         playerNames[0].repaint();
         playerNames[1].repaint();
-        int[] scores = play(players);
+        int[] scores = play(players, seed);
+        matchPlayed(players, scores, seed);
+        return scores;
+    }
+
+    /**
+     * Play a number of tournament matches at once. Matches between robots
+     * are played by a MatchRunner on all of the processors, without being
+     * shown on the board. Then the results are recorded in the order of
+     * <code>pairs</code>, and matches with a human player in them are played
+     * on the board when their turn comes, so the ratings come out the same
+     * as if the matches had been played one after another.
+     * @return the scores of each match, in the same order as the pairs, or
+     * null for matches which weren't played because the tournament was
+     * cancelled.
+     */
+    public int[][] tournamentMatches(PlayerWrapper[][] pairs, long[] seeds) {
+        int[][] results = new int[pairs.length][];
+        java.util.List<Integer> robotMatches = new ArrayList<>();
+        for (int i=0; i<pairs.length; i++) {
+            PlayerWrapper[] pair = pairs[i];
+            if (pair[0] != null && pair[1] != null && isRobot(pair[0]) && isRobot(pair[1])) robotMatches.add(i);
+        }
+        if (robotMatches.size() > 0) {
+            if (runner == null) runner = new MatchRunner();
+            runner.setMoveTime(moveTime);
+            PlayerWrapper[][] robotPairs = new PlayerWrapper[robotMatches.size()][];
+            long[] robotSeeds = new long[robotPairs.length];
+            for (int k=0; k<robotPairs.length; k++) {
+                robotPairs[k] = pairs[robotMatches.get(k)];
+                robotSeeds[k] = seeds[robotMatches.get(k)];
+            }
+            String mesg = MessageFormat.format(resources.getString("filler.string.playingmatches"),
+                robotPairs.length, runner.getThreads());
+            showMessage(mesg, "");
+            int[][] robotResults = runner.playAll(robotPairs, robotSeeds, () -> cancelled);
+            for (int k=0; k<robotResults.length; k++) results[robotMatches.get(k)] = robotResults[k];
+        }
+        for (int i=0; i<pairs.length; i++) {
+            if (results[i] != null) {
+                logGame(pairs[i], seeds[i]);
+                rate(pairs[i], results[i]);
+                matchPlayed(pairs[i], results[i], seeds[i]);
+            } else if (!robotMatches.contains(i)) {
+                if (cancelled) break;
+                results[i] = tournamentMatch(pairs[i], seeds[i]);
+            }
+        }
+        return results;
+    }
+
+    /** @return whether the player is a robot on this computer, which can play without the board. */
+    private static boolean isRobot(PlayerWrapper player) {
+        return MatchRunner.isRobot(player.getPlayerClass());
+    }
+
+    /** Show the result of a tournament match, and remember it with the seed it was played from. */
+    private void matchPlayed(PlayerWrapper[] players, int[] scores, long seed) {
         int winner = (scores[0] > scores[1]) ? 0 : 1;
         int loser = 1 - winner;
         String h2h = resources.getString("filler.string.h2h") + ": " + PlayerRatings.getHeadToHead(players);
@@ -251,18 +322,26 @@ public final class FillerPanel extends JPanel implements KeyListener {
         showMessage(mesg, h2h);
         String template = resources.getString("filler.string.matchresult");
         Object[] args = { players[winner].getName(), players[loser].getName(), scores[winner], scores[loser] };
-        mesg = MessageFormat.format(template, args);
+        mesg = MessageFormat.format(template, args) + " " +
+            MessageFormat.format(resources.getString("filler.string.gameseed"), String.valueOf(seed));
         TournamentResultsPanel.getInstance(resources).addText(mesg + SEP);
         PlayerRatings.save();
-        return scores;
     }
 
-    public int[] play(PlayerWrapper[] players) {
-        int turn = 0;
-        int[] score = new int[2];
-        int[] colours = new int[] {-1, -1};
+    /** Write the players and seed of a game to the log, so it can be played again. */
+    private void logGame(PlayerWrapper[] players, long seed) {
+        String template = resources.getString("filler.string.gamestarted");
+        System.out.println(MessageFormat.format(template, players[0].getName(), players[1].getName(),
+            String.valueOf(seed)));
+    }
+
+    /**
+     * Play a game on the board, with the board and the players' random
+     * numbers made from <code>seed</code>.
+     */
+    public int[] play(PlayerWrapper[] players, long seed) {
         Thread.currentThread().setPriority(3);
-        FillerSpace space[] = new FillerSpace[] { new FillerSpace(), new FillerSpace() };
+        logGame(players, seed);
         FillerPlayer[] opponents = new FillerPlayer[] { players[0].getInstance(), players[1].getInstance() };
         // isRemote == -1: if it's not a remote game
         // isRemote == 0: if player 0 is the remote player
@@ -273,63 +352,75 @@ public final class FillerPanel extends JPanel implements KeyListener {
         } else if (opponents[1] instanceof RemotePlayer) {
             isRemote = 1;
         }
-        board.restart(isRemote != -1);
-        colours[0] = board.model.pieces[FillerSettings.ORIGINS[0]];
-        colours[1] = board.model.pieces[FillerSettings.ORIGINS[1]];
-        board.repaint();
-        // initialise players
-        for (int i=0; i<2; i++) {
-            opponents[i].setOrigin(FillerSettings.ORIGINS[i],FillerSettings.ORIGINS[1-i]);
-            score[i] = board.countScore(FillerSettings.ORIGINS[i], space[i]);
-            scoreLabels[i].setText(Integer.toString(score[i]));
-        }
-        int[] rs = PlayerRatings.getRatings(players[0], players[1]);
-        boolean[] requiresButtons =
-            { opponents[0].requiresButtons(), opponents[1].requiresButtons() };
-        boolean fast = !requiresButtons[0] && !requiresButtons[1];
-        int i = 0;
+        SplittableRandom rng = new SplittableRandom(seed);
+        board.restart(isRemote != -1, rng.split());
+        GameEngine game = new GameEngine(board.model, opponents[0], opponents[1]);
+        game.setRandom(rng);
+        game.setMoveTime(moveTime);
+        game.addGameListener(new GameView(isRemote));
         showButtons();
-        while (true) {
-            currentPlayer = opponents[i];
+        int[] score = game.play();
+        if (game.isWon()) rate(players, score);
+        return score;
+    }
+
+    /** Change the ratings of the players after a game which one of them won. */
+    private static void rate(PlayerWrapper[] players, int[] scores) {
+        int[] rs = PlayerRatings.getRatings(players[0], players[1]);
+        PlayerRatings.setRatings(players, rs, (scores[0] > scores[1]) ? 0 : 1);
+    }
+
+    /**
+     * Shows a game on the board, the score labels and the colour buttons,
+     * and tells a remote opponent about the moves made here.
+     */
+    private class GameView implements GameListener {
+        private final int isRemote;
+        private boolean[] requiresButtons;
+        private boolean fast;
+
+        GameView(int isRemote) {
+            this.isRemote = isRemote;
+        }
+
+        public void gameStarted(GameEngine game) {
+            requiresButtons = new boolean[] {
+                game.getPlayer(0).requiresButtons(), game.getPlayer(1).requiresButtons() };
+            fast = !requiresButtons[0] && !requiresButtons[1];
+            board.repaint();
+            for (int i=0; i<2; i++) scoreLabels[i].setText(Integer.toString(game.getScore(i)));
+        }
+
+        public void turnStarted(GameEngine game, int i) {
+            currentPlayer = game.getPlayer(i);
             buttonPanels[i].requestFocus();
             for (int k=0; k<FillerSettings.NUM_COLOURS*2; k++) {
                 if (!requiresButtons[k%2]) {
                     buttons[k].setEnabled(false);
                 } else if (k % 2 == i) {
                     ButtonModel bm = buttons[k].getModel();
-                    bm.setEnabled(k/2 != colours[1-i]);
-                    bm.setPressed(k/2 != colours[i]);
+                    bm.setEnabled(k/2 != game.getColour(1-i));
+                    bm.setPressed(k/2 != game.getColour(i));
                 } else {
                     buttons[k].setEnabled(false);
                 }
             }
-            int oldColour = colours[i];
-            colours[i] = opponents[i].takeTurn(board.model,colours[1-i]);
+        }
+
+        public void moveMade(GameEngine game, int i, int oldColour) {
             if (isRemote != -1 && i != isRemote) {
                 // Opponent is a remote player, send local move to remote
                 try {
-                    MoveMessage msg = new MoveMessage(colours[i]);
+                    MoveMessage msg = new MoveMessage(game.getColour(i));
                     RemoteConnection.getInstance().sendMessage(msg);
                 } catch (IOException e) {
                     e.printStackTrace();
                 }
             }
-            if (colours[i] == colours[1-i] || colours[i] < 0 || colours[i] >= FillerSettings.NUM_COLOURS) {
-                // player chose an invalid myColour
-                System.out.println(opponents[i].getName() + " chose " + colours[i]);
-                colours[i] = oldColour;
-            }
-            score[i] = board.changeColourCountScore(space[i],colours[i],FillerSettings.ORIGINS[i], fast);
+            board.paintTerritory(game.getSpace(i), game.getColour(i), fast);
             // currentPlayer may now be null
-            scoreLabels[i].setText(Integer.toString(score[i]));
-            if (score[i] >= FillerSettings.POINTS_TO_WIN) break;
-            turn += (i % 2);
-            i = 1-i;
+            scoreLabels[i].setText(Integer.toString(game.getScore(i)));
         }
-        if (score[0] >= FillerSettings.POINTS_TO_WIN || score[1] >= FillerSettings.POINTS_TO_WIN) {
-            PlayerRatings.setRatings(players, rs, (score[0] > score[1]) ? 0 : 1);
-        }
-        return score;
     }
 
     /**
@@ -14,6 +14,8 @@
 
 package friendless.games.filler;
 
+import java.util.*;
+
 /**
  * An interface to be implemented by something which can play Filler.
  *
@@ -43,6 +45,30 @@ public interface FillerPlayer {
      */
     int takeTurn(FillerModel model, int otherPlayerColour);
 
+    /**
+     * Ask the player to make a move by a given time. Players which don't
+     * search ahead can ignore the deadline.
+     * @param deadline when the player should have chosen their move by
+     */
+    default int takeTurn(FillerModel model, int otherPlayerColour, Deadline deadline) {
+        return takeTurn(model, otherPlayerColour);
+    }
+
+    /**
+     * Give the player their own random numbers for a game, so that the game
+     * can be played again the same way. Players which don't choose at random
+     * can ignore them.
+     */
+    default void setRandom(SplittableRandom rng) {
+    }
+
+    /**
+     * Tell the player that the game is over, so that they can stop anything
+     * they were doing in the background.
+     */
+    default void gameFinished() {
+    }
+
     /**
      * Inform the player that a colour was chosen using the GUI interface.
      */
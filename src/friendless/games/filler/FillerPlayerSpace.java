@@ -14,6 +14,8 @@
 
 package friendless.games.filler;
 
+import java.util.*;
+
 /**
  * Memory that a Filler robot player uses to do calculations.
  * This exists so that no other temporary space needs to be allocated during
@@ -23,14 +25,20 @@ package friendless.games.filler;
  * @author John Farrell
  */
 public class FillerPlayerSpace {
-    private static final boolean[] UNLISTED;
-    private static final int[] UNCOUNTED;
+    /** The shape of the board this space is for. */
+    public final BoardGeometry geometry;
     /** True iff the piece is already considered or is listed to be considered. */
     public boolean[] listed;
     /** the data for the model we build up during calculations */
     public int[] counted;
     /** Space for keeping a stack of border positions in */
     public int[] border;
+    /**
+     * A circular double ended queue for distance calculations. Its length is
+     * a power of two, big enough for every hex to be queued twice for each
+     * player.
+     */
+    public int[] deque;
     /** Whether I can reach each place. */
     public boolean[] reachable;
     /** Whether he can reach each place. */
@@ -39,17 +47,18 @@ public class FillerPlayerSpace {
     public int[] distance;
     /** Minimum number of turns opponent's territory to free spaces. */
     public int[] opponentDistance;
+    /** The region graph used for the last calculation, or null if it was done on hexes. */
+    RegionGraph regions;
+    /** Working space for calculations on regions, indexed by region. */
+    int[] regionFlags, regionType, regionDistance;
 
-    static {
-        UNLISTED = new boolean[FillerSettings.SIZE];
-        UNCOUNTED = new int[FillerSettings.SIZE];
-        for (int i=0; i<UNCOUNTED.length; i++) {
-            UNCOUNTED[i] = FillerModel.VACANT;
-        }
+    public FillerPlayerSpace() {
+        this(BoardGeometry.STANDARD);
     }
 
-    public FillerPlayerSpace() {
-        int size = FillerSettings.SIZE;
+    public FillerPlayerSpace(BoardGeometry geometry) {
+        this.geometry = geometry;
+        int size = geometry.getSize();
         reachable = new boolean[size];
         hisReachable = new boolean[size];
         counted = new int[size];
@@ -57,21 +66,25 @@ public class FillerPlayerSpace {
         opponentDistance = new int[size];
         listed = new boolean[size];
         border = new int[size];
+        deque = new int[Integer.highestOneBit(4 * size - 1) << 1];
+        regionFlags = new int[size];
+        regionType = new int[size];
+        regionDistance = new int[size];
     }
 
     public void resetReachable() {
-        System.arraycopy(UNLISTED, 0, reachable, 0, reachable.length);
-        System.arraycopy(UNLISTED, 0, hisReachable, 0, hisReachable.length);
+        Arrays.fill(reachable, false);
+        Arrays.fill(hisReachable, false);
     }
 
     public void resetListed() {
-        System.arraycopy(UNLISTED, 0, listed, 0, listed.length);
+        Arrays.fill(listed, false);
     }
 
     public void resetCounted() {
-        System.arraycopy(UNCOUNTED, 0, counted, 0, counted.length);
-        System.arraycopy(UNCOUNTED, 0, distance, 0, distance.length);
-        System.arraycopy(UNCOUNTED, 0, opponentDistance, 0, opponentDistance.length);
+        Arrays.fill(counted, FillerModel.VACANT);
+        Arrays.fill(distance, FillerModel.VACANT);
+        Arrays.fill(opponentDistance, FillerModel.VACANT);
     }
 
     public void reset() {
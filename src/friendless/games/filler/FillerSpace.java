@@ -14,43 +14,60 @@
 
 package friendless.games.filler;
 
+import java.util.*;
+
 /**
  * Space that the game needs to do its calculations.
  * This is used as a source of temporary memory, to avoid allocating and
  * reallocating the space all the time.
  * We do this for efficiency.
+ * <P>
+ * The space also remembers one player's territory and the hexes on its
+ * border from one move to the next, so that a move only has to look at the
+ * border rather than at the whole board.
  *
  * @author John Farrell
  */
 public class FillerSpace {
+    /** The shape of the board this space is for. */
+    public final BoardGeometry geometry;
     public boolean[] captured;
     public boolean[] listed;
+    /** MINE for hexes in the territory, BORDER for hexes next to it. */
     public int[] counted;
     public int[] border;
-    private static final boolean[] UNLISTED;
-    private static final int[] UNCOUNTED;
-
-    static {
-        UNLISTED = new boolean[FillerSettings.SIZE];
-        UNCOUNTED = new int[FillerSettings.SIZE];
-        for (int i=0; i<UNCOUNTED.length; i++) {
-            UNCOUNTED[i] = FillerModel.VACANT;
-        }
-    }
+    /** The first territorySize elements are the hexes in the territory. */
+    public int[] territory;
+    public int territorySize;
+    /** The first frontierSize elements are the hexes next to the territory. */
+    public int[] frontier;
+    public int frontierSize;
+    /** The xor of the Zobrist hex keys of the hexes in the territory. */
+    public long hexKeys;
+    /** The xor of the Zobrist owner keys of the hexes in the territory. */
+    public long ownerKeys;
 
     public FillerSpace() {
-        captured = new boolean[FillerSettings.SIZE];
-        counted = new int[FillerSettings.SIZE];
-        listed = new boolean[FillerSettings.SIZE];
-        border = new int[FillerSettings.SIZE];
+        this(BoardGeometry.STANDARD);
+    }
+
+    public FillerSpace(BoardGeometry geometry) {
+        this.geometry = geometry;
+        int size = geometry.getSize();
+        captured = new boolean[size];
+        counted = new int[size];
+        listed = new boolean[size];
+        border = new int[size];
+        territory = new int[size];
+        frontier = new int[size];
     }
 
     public void resetListed() {
-        System.arraycopy(UNLISTED, 0, listed, 0, listed.length);
+        Arrays.fill(listed, false);
     }
 
     public void resetCounted() {
-        System.arraycopy(UNCOUNTED, 0, counted, 0, counted.length);
+        Arrays.fill(counted, FillerModel.VACANT);
     }
 
     public void reset() {
@@ -59,4 +76,74 @@ public class FillerSpace {
         // don't touch captured, it needs to be preserved
         // don't clear border, you don't need to
     }
+
+    /**
+     * Work out from scratch the territory of the player who started at
+     * <code>origin</code>, and the hexes next to it.
+     * @return the player's score.
+     */
+    public int claim(FillerModel model, int origin) {
+        reset();
+        territorySize = 0;
+        frontierSize = 0;
+        hexKeys = 0L;
+        ownerKeys = 0L;
+        take(model, origin, model.pieces[origin]);
+        return territorySize;
+    }
+
+    /**
+     * The owner of this space has changed the colour of their territory to
+     * <code>colour</code>. Take over the hexes of that colour next to the
+     * territory, and whatever is joined to them. Only the hexes on the border
+     * are examined.
+     * @return the player's score.
+     */
+    public int absorb(FillerModel model, int colour) {
+        int[] pieces = model.pieces;
+        // the frontier may grow while we go through it, but new hexes are never this colour
+        for (int k=0; k<frontierSize; k++) {
+            int p = frontier[k];
+            if (counted[p] == FillerModel.BORDER && pieces[p] == colour) take(model, p, colour);
+        }
+        // forget about border hexes which we now own
+        int n = 0;
+        for (int k=0; k<frontierSize; k++) {
+            int p = frontier[k];
+            if (counted[p] == FillerModel.BORDER) frontier[n++] = p;
+        }
+        frontierSize = n;
+        return territorySize;
+    }
+
+    /**
+     * Add <code>start</code> and all hexes of <code>colour</code> joined to it
+     * to the territory, and put the other hexes next to them on the frontier.
+     */
+    private void take(FillerModel model, int start, int colour) {
+        int[] pieces = model.pieces;
+        int[] first = geometry.first;
+        int[] adjacent = geometry.adjacent;
+        int idx = 0;
+        counted[start] = FillerModel.MINE;
+        border[idx++] = start;
+        while (idx > 0) {
+            int p = border[--idx];
+            captured[p] = true;
+            territory[territorySize++] = p;
+            hexKeys ^= Zobrist.hexKey(p);
+            ownerKeys ^= Zobrist.ownerKey(p);
+            for (int k=first[p]; k<first[p+1]; k++) {
+                int q = adjacent[k];
+                if (counted[q] == FillerModel.MINE) continue;
+                if (pieces[q] == colour) {
+                    counted[q] = FillerModel.MINE;
+                    border[idx++] = q;
+                } else if (counted[q] == FillerModel.VACANT) {
+                    counted[q] = FillerModel.BORDER;
+                    frontier[frontierSize++] = q;
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,173 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+import java.util.*;
+
+/**
+ * Plays a game between two players on a model, without showing it.
+ * Anything which wants to show the game, like the FillerPanel, or keep
+ * track of it, listens to it with a GameListener.
+ * <P>
+ * Player 0 starts from the first origin of the board's geometry and moves
+ * first. The model is changed as the game is played, and each player's
+ * territory is kept in a FillerSpace, so a move only looks at the hexes
+ * next to the territory of the player who made it.
+ * <P>
+ * An engine plays one game, and is used by one thread.
+ *
+ * @author John Farrell
+ */
+public class GameEngine {
+    private final FillerModel model;
+    private final FillerPlayer[] players;
+    private final int[] origins;
+    private final FillerSpace[] spaces;
+    private final int[] colours = new int[2];
+    private final int[] scores = new int[2];
+    private final List<GameListener> listeners = new ArrayList<>();
+    /** Milliseconds robots may take for each move, or 0 for no limit. */
+    private long moveTime;
+    private int maxMoves = Integer.MAX_VALUE;
+    private int moves;
+    /** What the players' random numbers are split off, or null to leave them alone. */
+    private SplittableRandom rng;
+
+    /**
+     * @param model the board to play on, which should be filled in already.
+     * It is changed as the game goes on.
+     */
+    public GameEngine(FillerModel model, FillerPlayer player0, FillerPlayer player1) {
+        BoardGeometry geometry = model.getGeometry();
+        this.model = model;
+        this.players = new FillerPlayer[] { player0, player1 };
+        this.origins = geometry.getOrigins();
+        this.spaces = new FillerSpace[] { new FillerSpace(geometry), new FillerSpace(geometry) };
+    }
+
+    public void addGameListener(GameListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeGameListener(GameListener listener) {
+        listeners.remove(listener);
+    }
+
+    /** Give robots <code>moveTime</code> milliseconds for each move, or no limit if it is 0. */
+    public void setMoveTime(long moveTime) {
+        this.moveTime = moveTime;
+    }
+
+    /**
+     * Stop the game after this many moves, counting both players' moves,
+     * even if nobody has won. There is no limit unless this is called.
+     */
+    public void setMaxMoves(int maxMoves) {
+        this.maxMoves = maxMoves;
+    }
+
+    /**
+     * Give each player a generator split off <code>rng</code> when the game
+     * starts, player 0 first, so that the game can be played again the same
+     * way.
+     */
+    public void setRandom(SplittableRandom rng) {
+        this.rng = rng;
+    }
+
+    public FillerModel getModel() { return model; }
+
+    public FillerPlayer getPlayer(int player) { return players[player]; }
+
+    public int getOrigin(int player) { return origins[player]; }
+
+    /** @return the current colour of the player's territory. */
+    public int getColour(int player) { return colours[player]; }
+
+    public int getScore(int player) { return scores[player]; }
+
+    /** @return the scores of both players. */
+    public int[] getScores() { return scores.clone(); }
+
+    /** @return the player's territory and the hexes next to it. Do not change it. */
+    public FillerSpace getSpace(int player) { return spaces[player]; }
+
+    /** @return the number of moves made so far, counting both players' moves. */
+    public int getMoves() { return moves; }
+
+    /** @return whether somebody has got enough points to win. */
+    public boolean isWon() {
+        int toWin = model.getGeometry().getPointsToWin();
+        return scores[0] >= toWin || scores[1] >= toWin;
+    }
+
+    /** @return the player with more points, or -1 if they have the same. */
+    public int getWinner() {
+        if (scores[0] == scores[1]) return -1;
+        return (scores[0] > scores[1]) ? 0 : 1;
+    }
+
+    /**
+     * Play the game until somebody wins or the maximum number of moves is
+     * reached.
+     * @return the scores of the players.
+     */
+    public int[] play() {
+        int toWin = model.getGeometry().getPointsToWin();
+        for (int i=0; i<2; i++) {
+            players[i].setOrigin(origins[i], origins[1-i]);
+            if (rng != null) players[i].setRandom(rng.split());
+            colours[i] = model.pieces[origins[i]];
+            scores[i] = spaces[i].claim(model, origins[i]);
+        }
+        for (GameListener l : listeners) l.gameStarted(this);
+        int i = 0;
+        try {
+            while (moves < maxMoves) {
+                for (GameListener l : listeners) l.turnStarted(this, i);
+                int oldColour = colours[i];
+                Deadline deadline = players[i].requiresButtons() ? Deadline.NONE : Deadline.after(moveTime);
+                int c = players[i].takeTurn(model, colours[1-i], deadline);
+                if (c == colours[1-i] || c < 0 || c >= model.getGeometry().getNumColours()) {
+                    // player chose an invalid colour
+                    System.out.println(players[i].getName() + " chose " + c);
+                    c = oldColour;
+                }
+                move(i, c);
+                for (GameListener l : listeners) l.moveMade(this, i, oldColour);
+                if (scores[i] >= toWin) break;
+                i = 1-i;
+            }
+        } finally {
+            // even if something went wrong, so that nobody goes on thinking about it
+            for (FillerPlayer p : players) p.gameFinished();
+        }
+        for (GameListener l : listeners) l.gameFinished(this);
+        return getScores();
+    }
+
+    /** Change the colour of the player's territory, and take over whatever that joins it to. */
+    private void move(int player, int colour) {
+        FillerSpace space = spaces[player];
+        int[] pieces = model.pieces;
+        int[] territory = space.territory;
+        int oldColour = colours[player];
+        for (int k=0; k<space.territorySize; k++) pieces[territory[k]] = colour;
+        model.colourChanged(origins[player], oldColour, colour, space.hexKeys);
+        colours[player] = colour;
+        scores[player] = space.absorb(model, colour);
+        moves++;
+    }
+}
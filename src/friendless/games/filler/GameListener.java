@@ -0,0 +1,40 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+/**
+ * Something which wants to know what happens in a game played by a
+ * GameEngine, such as the GUI, which shows it. The methods are called in
+ * the thread playing the game, and do nothing unless they are overridden.
+ *
+ * @author John Farrell
+ */
+public interface GameListener {
+    /** The players have their origins and the scores have been counted. */
+    default void gameStarted(GameEngine game) { }
+
+    /** It is <code>player</code>'s turn, and they are about to be asked for a move. */
+    default void turnStarted(GameEngine game, int player) { }
+
+    /**
+     * <code>player</code> has changed the colour of their territory from
+     * <code>oldColour</code> to game.getColour(player), and their
+     * territory and score have been updated.
+     */
+    default void moveMade(GameEngine game, int player, int oldColour) { }
+
+    /** The game is over, either because somebody won or it went on too long. */
+    default void gameFinished(GameEngine game) { }
+}
@@ -0,0 +1,58 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+/**
+ * How a game played by a MatchRunner came out. It doesn't keep the players
+ * or the board, so lots of them can be kept without using much memory.
+ *
+ * @author John Farrell
+ */
+public final class GameResult {
+    private final String[] names;
+    private final long seed;
+    private final int[] scores;
+    private final int moves;
+
+    GameResult(GameEngine game, long seed) {
+        this.names = new String[] { game.getPlayer(0).getName(), game.getPlayer(1).getName() };
+        this.seed = seed;
+        this.scores = game.getScores();
+        this.moves = game.getMoves();
+    }
+
+    /** @return the name of player 0, who moved first, or player 1. */
+    public String getName(int player) { return names[player]; }
+
+    /** @return the seed the board and the players' random numbers were made from. */
+    public long getSeed() { return seed; }
+
+    public int getScore(int player) { return scores[player]; }
+
+    public int[] getScores() { return scores.clone(); }
+
+    /** @return the number of moves made, counting both players' moves. */
+    public int getMoves() { return moves; }
+
+    /** @return the player with more points, or -1 if they have the same. */
+    public int getWinner() {
+        if (scores[0] == scores[1]) return -1;
+        return (scores[0] > scores[1]) ? 0 : 1;
+    }
+
+    public String toString() {
+        return names[0] + " " + scores[0] + " - " + scores[1] + " " + names[1] + " in " + moves + " moves";
+    }
+}
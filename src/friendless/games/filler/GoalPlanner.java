@@ -0,0 +1,130 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+import java.util.*;
+
+/**
+ * Works out, for every hex on the board at once, which colours I could
+ * choose now to be on a shortest path to that hex. After that, asking
+ * about any number of goals costs almost nothing.
+ * <P>
+ * The distances from FillerModel.allocateDistance say how many turns it
+ * takes to get to each hex. A hex which is one turn away can only be got by
+ * choosing its own colour. A hex which is further away is on a shortest
+ * path through any neighbour which is one turn closer, so the colours for
+ * it are all the colours for those neighbours, and the same for every hex
+ * of the same colour joined to it. Going through the blocks of the same
+ * colour nearest first works them all out in one pass.
+ *
+ * @author John Farrell
+ */
+public class GoalPlanner {
+    private final BoardGeometry geometry;
+    /** The set of first colours for each hex, or 0 if it isn't reachable or is mine already. */
+    private final int[] firstColours;
+    /** The hexes in order of distance. */
+    private final int[] order;
+    /** Where each distance starts in order, and where the next one goes while sorting. */
+    private final int[] start, next;
+    private final int[] stack;
+    private final boolean[] done;
+
+    public GoalPlanner(BoardGeometry geometry) {
+        this.geometry = geometry;
+        int size = geometry.getSize();
+        firstColours = new int[size];
+        order = new int[size];
+        stack = new int[size];
+        done = new boolean[size];
+        start = new int[size + 2];
+        next = new int[size + 2];
+    }
+
+    public BoardGeometry getGeometry() { return geometry; }
+
+    /**
+     * Work out the first colours for every hex.
+     * @param space distance is filled in already.
+     */
+    public void plan(FillerModel model, FillerPlayerSpace space) {
+        int[] pieces = model.pieces;
+        int[] distance = space.distance;
+        int[] first = geometry.first;
+        int[] adjacent = geometry.adjacent;
+        int size = distance.length;
+        // sort the hexes by distance, leaving out those with none
+        int[] start = this.start;
+        int[] next = this.next;
+        int max = 0;
+        for (int i=0; i<size; i++) {
+            int d = distance[i];
+            if (d <= 0) continue;
+            if (d > max) {
+                Arrays.fill(start, max + 2, d + 2, 0);
+                max = d;
+            }
+            start[d + 1]++;
+        }
+        start[1] = 0;
+        for (int d=1; d<=max; d++) start[d+1] += start[d];
+        System.arraycopy(start, 0, next, 0, max + 2);
+        int[] firstColours = this.firstColours;
+        int[] order = this.order;
+        int[] stack = this.stack;
+        boolean[] done = this.done;
+        for (int i=0; i<size; i++) {
+            firstColours[i] = 0;
+            done[i] = false;
+            if (distance[i] > 0) order[next[distance[i]]++] = i;
+        }
+        // go through the hexes of each distance a block of the same colour at a time
+        for (int d=1; d<=max; d++) {
+            int end = start[d+1];
+            for (int k=start[d]; k<end; k++) {
+                int p = order[k];
+                if (done[p]) continue;
+                int c = pieces[p];
+                int colours = (d == 1) ? 1 << c : 0;
+                int n = 0;
+                stack[n++] = p;
+                done[p] = true;
+                for (int m=0; m<n; m++) {
+                    int r = stack[m];
+                    for (int j=first[r]; j<first[r+1]; j++) {
+                        int q = adjacent[j];
+                        int dq = distance[q];
+                        if (dq == d - 1) {
+                            colours |= firstColours[q];
+                        } else if (dq == d && !done[q] && pieces[q] == c) {
+                            done[q] = true;
+                            stack[n++] = q;
+                        }
+                    }
+                }
+                for (int m=0; m<n; m++) firstColours[stack[m]] = colours;
+            }
+        }
+    }
+
+    /**
+     * @return the set of colours which I could choose now to be on a
+     * shortest path to <code>goal</code>, or 0 if it is mine already or
+     * can't be got at all.
+     */
+    public int getFirstColours(int goal) {
+        return firstColours[goal];
+    }
+}
@@ -15,49 +15,247 @@
 package friendless.games.filler;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * A robot player which uses lookahead and evaluators to implement its
  * strategy.
+ * <P>
+ * A player which searches can ponder: after choosing a move, it goes on
+ * thinking while the opponent chooses theirs, searching the position which
+ * each of the opponent's choices would leave. When its turn comes and the
+ * position is one it has already searched, it moves straight away, and
+ * otherwise what it found is still in the transposition table. Pondering
+ * is turned on by the system property filler.ponder, or setPondering, and
+ * stops when the game is finished. There is no pondering when Seeds says
+ * the games must be reproducible. The positions are kept as CompactBoards,
+ * so on boards with more colours than they can hold there is no pondering.
  *
  * @author John Farrell
  */
 abstract public class LookaheadRobotPlayer extends RobotPlayer {
+    /** For looking one move ahead, kept from turn to turn. */
+    private ChildPositions children;
+    private int[] childScores;
+    /** For looking more than one move ahead, kept from turn to turn. */
+    private ParallelSearch search;
+    /** Positions searched already, kept from turn to turn. */
+    private TranspositionTable table;
+    /** The evaluator and origin that the values in the table are for. */
+    private Evaluator tableEvaluator;
+    private int tableOrigin = -1;
+    /** The system property which turns pondering on. */
+    public static final String PONDER_PROPERTY = "filler.ponder";
+    private boolean pondering = Boolean.getBoolean(PONDER_PROPERTY);
+    /** Searches on the opponent's time, sharing the table with the search. */
+    private AlphaBetaSearch ponderSearch;
+    private SearchBoard ponderBoard;
+    private ForkJoinTask<?> ponderTask;
+    /** What was pondered: the positions after each of the opponent's choices, and the best replies. */
+    private CompactBoard[] ponderPositions;
+    /** The position being pondered, unpacked for the search. */
+    private FillerModel ponderModel;
+    /** The current position, packed to compare with the pondered ones. */
+    private CompactBoard ponderCurrent;
+    private long[] ponderHashes;
+    private int[] ponderMoves;
+    private int ponderCount;
+    private Evaluator ponderEvaluator;
+    private int ponderDepth;
+    private int ponderOrigin = -1;
+
+    /** Whether to think about the next move while the opponent thinks about theirs. */
+    public void setPondering(boolean pondering) {
+        this.pondering = pondering;
+        if (!pondering) stopPondering();
+    }
+
+    public boolean isPondering() { return pondering; }
+
+    public void gameFinished() {
+        stopPondering();
+    }
+
+    public void setOrigin(int origin, int otherOrigin) {
+        // whatever was being pondered is from another game
+        stopPondering();
+        ponderCount = 0;
+        super.setOrigin(origin, otherOrigin);
+    }
+
+    /**
+     * Choose the colour which leads to the best position according to
+     * <code>evaluator</code>, looking one move ahead.
+     * @return the colour, or -1 if there is none.
+     */
     public int lookahead(Evaluator evaluator, boolean distance, boolean opponentDistance) {
-        int[] pieces = copy(model.pieces);
-        BitSet results = (BitSet) NO_COLOURS.clone();
-        int[] colours = new int[FillerSettings.NUM_COLOURS];
-        for (int c=0; c<FillerSettings.NUM_COLOURS; c++) colours[c] = c;
+        if (children == null || children.getGeometry() != geometry) {
+            children = new ChildPositions(geometry);
+            childScores = new int[geometry.getNumColours()];
+        }
+        children.setParent(model, origins, distance, opponentDistance);
+        int colours = allColours() & ~(1 << otherPlayerColour) & ~(1 << myColour);
+        evaluator.evalChildren(children, colours, childScores);
+        // the last of the best, as it always has been
+        int best = -1;
+        for (int c=0; c<childScores.length; c++) {
+            if ((colours & (1 << c)) == 0) continue;
+            if (best < 0 || childScores[c] >= childScores[best]) best = c;
+        }
+        if (best >= 0 && childScores[best] > Integer.MIN_VALUE) return best;
+        return -1;
+    }
 
-        Optional<int[]> best = Arrays.stream(colours).
-                filter(c -> c != otherPlayerColour && c != myColour).
-                parallel().
-                mapToObj(c -> eval(pieces, c, evaluator, distance, opponentDistance)).
-                reduce((pair1, pair2) -> (pair1[1] > pair2[1]) ? pair1 : pair2);
-        if (best.isPresent() && best.get()[1] > Integer.MIN_VALUE) return best.get()[0];
-        return chooseRandom(results);
+    /**
+     * Look <code>depth</code> moves ahead, taking turns with the opponent,
+     * and choose the colour which leads to the best position according to
+     * <code>evaluator</code> if the opponent plays as well as they can.
+     * If there is a deadline for this move, look one move further ahead at a
+     * time, and stop when the deadline passes. Positions are remembered
+     * in a transposition table, so those which can be reached by more than
+     * one order of moves are only searched once. The search uses all of
+     * the threads in the SearchPool.
+     * <P>
+     * If pondering is on and this position was searched to this depth while
+     * the opponent was thinking, the move found then is used.
+     */
+    public int search(Evaluator evaluator, int depth, boolean distance, boolean opponentDistance) {
+        stopPondering();
+        if (search == null || search.getGeometry() != geometry) {
+            if (table == null) table = new TranspositionTable();
+            search = new ParallelSearch(geometry, evaluator, distance, opponentDistance, table);
+            tableEvaluator = null;
+        } else {
+            search.setEvaluator(evaluator, distance, opponentDistance);
+        }
+        if (evaluator != tableEvaluator || origins[0] != tableOrigin) {
+            table.clear();
+            tableEvaluator = evaluator;
+            tableOrigin = origins[0];
+        }
+        int c = pondered(evaluator, depth);
+        if (c < 0) c = search.search(model, origins, depth, deadline);
+        if (pondering && c >= 0 && !Seeds.isReproducible()) {
+            int d = deadline.isLimited() ? Math.min(depth, search.getCompletedDepth() + 1) : depth;
+            ponder(evaluator, d, distance, opponentDistance, c);
+        }
+        return c;
+    }
+
+    /**
+     * Stop pondering.
+     * @return the move found by pondering for the current position, if it
+     * was searched with this evaluator at least this deep, or -1.
+     */
+    private int pondered(Evaluator evaluator, int depth) {
+        stopPondering();
+        if (evaluator != ponderEvaluator || depth > ponderDepth || origins[0] != ponderOrigin) return -1;
+        long hash = model.getHash();
+        boolean packed = false;
+        for (int k=0; k<ponderCount; k++) {
+            if (ponderHashes[k] != hash || ponderMoves[k] < 0) continue;
+            if (!packed) {
+                ponderCurrent.pack(model.pieces);
+                packed = true;
+            }
+            if (ponderPositions[k].equals(ponderCurrent)) return ponderMoves[k];
+        }
+        return -1;
     }
 
-    int[] eval(int[] pieces, int c, Evaluator evaluator, boolean distance, boolean opponentDistance) {
-        FillerModel model = new FillerModel(pieces, null);
-        // pretend we took colour c
-        int[] counted = space.counted;
-        // need a thread-local space in case we are doing this in parallel.
-        FillerPlayerSpace space = new FillerPlayerSpace();
-        calculate(model, false, false, space);
-        for (int i=0; i<counted.length; i++) {
-            if (counted[i] == FillerModel.MINE) model.pieces[i] = c;
+    /**
+     * Start searching, in the background, the positions the opponent could
+     * leave after I choose colour <code>c</code>, the ones where they get
+     * the most first.
+     */
+    private void ponder(Evaluator evaluator, int depth, boolean distance, boolean opponentDistance, int c) {
+        if (geometry.getNumColours() > CompactBoard.MAX_COLOURS) return;
+        if (ponderSearch == null || ponderSearch.getGeometry() != geometry) {
+            ponderSearch = new AlphaBetaSearch(geometry, evaluator, distance, opponentDistance);
+            ponderBoard = new SearchBoard(geometry);
+            int n = geometry.getNumColours();
+            ponderPositions = new CompactBoard[n];
+            for (int k=0; k<n; k++) ponderPositions[k] = new CompactBoard(geometry);
+            ponderModel = new FillerModel(geometry);
+            ponderCurrent = new CompactBoard(geometry);
+            ponderHashes = new long[n];
+            ponderMoves = new int[n];
+        }
+        ponderSearch.setEvaluator(evaluator, distance, opponentDistance);
+        ponderSearch.setTable(table);
+        ponderEvaluator = evaluator;
+        ponderDepth = depth;
+        ponderOrigin = origins[0];
+        // the positions have to be copied now, as the model is the game's
+        SearchBoard board = ponderBoard;
+        board.setPosition(model, origins);
+        board.makeMove(0, c);
+        int before = board.getScore(1);
+        int[] gains = new int[ponderPositions.length];
+        int legal = board.legalMoves(1);
+        int n = 0;
+        while (legal != 0) {
+            int d = Integer.numberOfTrailingZeros(legal);
+            legal &= legal - 1;
+            int gain = board.makeMove(1, d) - before;
+            long hash = board.getHash();
+            // the board in the first free place is reused
+            CompactBoard position = ponderPositions[n];
+            position.pack(board.getModel().pieces);
+            board.unmakeMove();
+            // insertion sort, biggest gain first
+            int k = n++;
+            while (k > 0 && gains[k-1] < gain) {
+                ponderPositions[k] = ponderPositions[k-1];
+                ponderHashes[k] = ponderHashes[k-1];
+                gains[k] = gains[k-1];
+                k--;
+            }
+            ponderPositions[k] = position;
+            ponderHashes[k] = hash;
+            gains[k] = gain;
+            ponderMoves[k] = -1;
         }
-        calculate(model, distance, opponentDistance, space);
-        // now how much does that score?
-        int score = evaluator.eval(model, space, origins);
-        return new int[] { c, score };
+        ponderCount = n;
+        final AlphaBetaSearch ps = ponderSearch;
+        final CompactBoard[] positions = ponderPositions;
+        final long[] hashes = ponderHashes;
+        final FillerModel pm = ponderModel;
+        final int[] moves = ponderMoves;
+        final int[] os = origins.clone();
+        final int count = n;
+        ps.setStopped(false);
+        ponderTask = SearchPool.fork(() -> {
+            for (int k=0; k<count; k++) {
+                pm.copyPieces(positions[k], hashes[k]);
+                int m = ps.search(pm, os, depth, Deadline.NONE, false);
+                if (ps.getCompletedDepth() < depth) break;
+                moves[k] = m;
+            }
+        });
+    }
+
+    /**
+     * Stop pondering, and wait until the pondering search has noticed. The
+     * task isn't cancelled, as a cancelled task counts as done while it is
+     * still running; it finishes on its own once it sees it is stopped.
+     */
+    public void stopPondering() {
+        if (ponderTask == null) return;
+        ponderSearch.setStopped(true);
+        ponderTask.join();
+        ponderTask = null;
     }
 
     protected void calculate(FillerModel model, boolean distance, boolean opponentDistance, FillerPlayerSpace space) {
         FillerModel.allocateTypes(model, origins, space);
-        if (distance) FillerModel.allocateDistance(model, space);
-        if (opponentDistance) FillerModel.allocateOpponentDistance(model, space);
+        if (distance && opponentDistance) {
+            FillerModel.allocateDistances(model, space);
+        } else if (distance) {
+            FillerModel.allocateDistance(model, space);
+        } else if (opponentDistance) {
+            FillerModel.allocateOpponentDistance(model, space);
+        }
     }
 
     public String getIcon() { return "badrock.png"; }
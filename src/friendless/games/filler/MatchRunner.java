@@ -0,0 +1,186 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * Plays lots of games between robots at once, without showing them, on a
+ * fixed number of threads. Each game gets its own board and its own
+ * players, which are only made when a thread is ready to play the game, so
+ * that a long list of games doesn't fill up memory with robots waiting to
+ * play.
+ * <P>
+ * The number of threads is set by the system property filler.match.threads,
+ * and is the number of processors if that isn't set. Robots which search
+ * still do their thinking in the SearchPool.
+ *
+ * @author John Farrell
+ */
+public class MatchRunner {
+    /** The system property which sets the number of games played at once. */
+    public static final String THREADS_PROPERTY = "filler.match.threads";
+
+    private final ExecutorService executor;
+    private final int threads;
+    /** Milliseconds robots may take for each move, or 0 for no limit. */
+    private volatile long moveTime;
+    private volatile int maxMoves = Integer.MAX_VALUE;
+
+    /** Create a runner with the number of threads given by the system property. */
+    public MatchRunner() {
+        this(Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public MatchRunner(int threads) {
+        this.threads = Math.max(1, threads);
+        executor = Executors.newFixedThreadPool(this.threads, new ThreadFactory() {
+            private int count;
+
+            public synchronized Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "filler-match-" + count++);
+                thread.setDaemon(true);
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            }
+        });
+    }
+
+    /** @return the number of games played at once. */
+    public int getThreads() { return threads; }
+
+    /** Give robots <code>moveTime</code> milliseconds for each move, or no limit if it is 0. */
+    public void setMoveTime(long moveTime) {
+        this.moveTime = moveTime;
+    }
+
+    /** Stop games after this many moves, even if nobody has won. */
+    public void setMaxMoves(int maxMoves) {
+        this.maxMoves = maxMoves;
+    }
+
+    /**
+     * Play a game when a thread is free, on a board made from
+     * <code>seed</code>. The players are made by calling the suppliers in
+     * the thread which plays the game.
+     */
+    public Future<GameResult> submit(Supplier<FillerPlayer> player0, Supplier<FillerPlayer> player1, long seed) {
+        return executor.submit(() -> play(new FillerPlayer[] { player0.get(), player1.get() }, seed));
+    }
+
+    /**
+     * Play each pair of players in <code>pairs</code> once, on a board made
+     * from the corresponding seed, and wait for them all to finish. Games
+     * which haven't started yet when <code>cancelled</code> becomes true are
+     * not played.
+     * @return the scores of each game, in the same order as the pairs, or
+     * null for games which weren't played.
+     */
+    public int[][] playAll(PlayerWrapper[][] pairs, long[] seeds, BooleanSupplier cancelled) {
+        List<Future<GameResult>> games = new ArrayList<>(pairs.length);
+        for (int i=0; i<pairs.length; i++) {
+            final PlayerWrapper[] pair = pairs[i];
+            final long seed = seeds[i];
+            games.add(executor.submit(() -> {
+                if (cancelled.getAsBoolean()) return null;
+                return play(new FillerPlayer[] { pair[0].getInstance(), pair[1].getInstance() }, seed);
+            }));
+        }
+        int[][] results = new int[pairs.length][];
+        for (int i=0; i<results.length; i++) {
+            GameResult result = get(games.get(i));
+            if (result != null) results[i] = result.getScores();
+        }
+        return results;
+    }
+
+    /**
+     * Wait for a game to finish.
+     * @return the result, or null if it wasn't played.
+     */
+    public static GameResult get(Future<GameResult> game) {
+        try {
+            return game.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException ex) {
+            throw new RuntimeException(ex.getCause());
+        }
+    }
+
+    /** Stop the threads once the games already submitted have been played. */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Play a game in this thread, with the board and the players' random
+     * numbers made from <code>seed</code>. players[0] starts.
+     */
+    public GameResult play(FillerPlayer[] players, long seed) {
+        SplittableRandom rng = new SplittableRandom(seed);
+        FillerModel model = new FillerModel();
+        model.randomFill(rng.split());
+        model.trackRegions();
+        GameEngine game = new GameEngine(model, players[0], players[1]);
+        game.setRandom(rng);
+        game.setMoveTime(moveTime);
+        game.setMaxMoves(maxMoves);
+        game.play();
+        return new GameResult(game, seed);
+    }
+
+    /**
+     * @return a new instance of the player with this class name, without the
+     * package, like the names in PlayerWrappers.PLAYER_CLASS_NAMES.
+     * @throws IllegalArgumentException if there is no such player.
+     */
+    public static FillerPlayer newPlayer(String name) {
+        Class<?> c = playerClass(name);
+        try {
+            return (FillerPlayer) c.getDeclaredConstructor().newInstance();
+        } catch (Exception ex) {
+            throw new IllegalArgumentException("can't load player " + name, ex);
+        }
+    }
+
+    /**
+     * @return the class of the player with this class name, without the
+     * package, without making one.
+     * @throws IllegalArgumentException if there is no such player.
+     */
+    public static Class<?> playerClass(String name) {
+        try {
+            Class<?> c = Class.forName(PlayerWrappers.PLAYER_PACKAGE + "." + name);
+            if (!FillerPlayer.class.isAssignableFrom(c)) throw new IllegalArgumentException(name + " is not a player");
+            return c;
+        } catch (ClassNotFoundException ex) {
+            throw new IllegalArgumentException("can't load player " + name, ex);
+        }
+    }
+
+    /**
+     * @return whether players of this class are robots on this computer,
+     * which can play without the board. They are the DumbRobotPlayers; the
+     * other players need somebody to press the buttons or are somewhere
+     * else.
+     */
+    public static boolean isRobot(Class<?> playerClass) {
+        return DumbRobotPlayer.class.isAssignableFrom(playerClass);
+    }
+}
@@ -0,0 +1,253 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Monte Carlo tree search: chooses a move by playing lots of quick games
+ * to the end from the current position and seeing which first moves win
+ * most often. The games are played with a PlayoutPolicy on a SearchBoard,
+ * so they allocate no memory.
+ * <P>
+ * A tree of the positions near the start of the games is built up as they
+ * are played. In positions which are already in the tree, moves are chosen
+ * by UCT: the move which has won most often, plus a bonus for moves which
+ * haven't been tried much, so that every move gets tried and the best ones
+ * get tried the most. The move chosen in the end is the one tried most.
+ * <P>
+ * The search uses root parallelism: each thread builds its own tree with
+ * its own board, and at the end the number of times each first move was
+ * tried is added up over all of the trees. The threads don't share anything
+ * while they work.
+ * <P>
+ * The playouts and time of all searches are added up, so that programs
+ * which play lots of games, like Batch, can say how fast the searches were.
+ *
+ * @author John Farrell
+ */
+public class MonteCarloSearch {
+    /** How much to favour moves which haven't been tried much. */
+    public static final double EXPLORATION = 0.7;
+    /** How much of the result of a game is for the margin rather than for winning. */
+    public static final double MARGIN = 0.1;
+    /** Games played out this far are decided on the score so far. */
+    private static final int MAX_PLAYOUT_MOVES = 400;
+
+    private final BoardGeometry geometry;
+    private final PlayoutPolicy policy;
+    private final Worker[] workers;
+    /** What each worker's random numbers are split off at the start of a search. */
+    private SplittableRandom rng = new SplittableRandom();
+    private long playouts;
+    private long nanos;
+    /** The playouts and time of all searches so far. */
+    private static final LongAdder totalPlayouts = new LongAdder(), totalNanos = new LongAdder();
+
+    /** Create a search using all of the threads in the SearchPool. */
+    public MonteCarloSearch(BoardGeometry geometry, PlayoutPolicy policy) {
+        this(geometry, policy, SearchPool.getThreads());
+    }
+
+    public MonteCarloSearch(BoardGeometry geometry, PlayoutPolicy policy, int threads) {
+        this.geometry = geometry;
+        this.policy = policy;
+        workers = new Worker[Math.max(1, threads)];
+        for (int t=0; t<workers.length; t++) workers[t] = new Worker();
+    }
+
+    public BoardGeometry getGeometry() { return geometry; }
+
+    public PlayoutPolicy getPolicy() { return policy; }
+
+    /**
+     * Take the random numbers for searches from <code>rng</code>, so that a
+     * search limited by the number of playouts rather than by a deadline
+     * always chooses the same move.
+     */
+    public void setRandom(SplittableRandom rng) {
+        this.rng = rng;
+    }
+
+    /** @return the number of games played out by the last search. */
+    public long getPlayouts() { return playouts; }
+
+    /** @return the number of games played out per second by the last search. */
+    public double getPlayoutsPerSecond() {
+        return (nanos == 0) ? 0.0 : playouts * 1e9 / nanos;
+    }
+
+    /** @return the number of games played out by all searches so far. */
+    public static long getTotalPlayouts() { return totalPlayouts.sum(); }
+
+    /** @return the number of games played out per second of searching, over all searches so far. */
+    public static double getTotalPlayoutsPerSecond() {
+        long ns = totalNanos.sum();
+        return (ns == 0) ? 0.0 : totalPlayouts.sum() * 1e9 / ns;
+    }
+
+    /**
+     * Play games out from <code>model</code> until <code>maxPlayouts</code>
+     * have been played or the deadline passes, whichever comes first.
+     * @param origins origins[0] is the origin of the player to move.
+     * @return the colour to choose, or -1 if there is no move.
+     */
+    public int search(final FillerModel model, final int[] origins, final Deadline deadline, int maxPlayouts) {
+        long start = System.nanoTime();
+        final int each = Math.max(1, maxPlayouts / workers.length);
+        for (Worker w : workers) w.rng = rng.split();
+        SearchPool.invoke(() -> Arrays.stream(workers).parallel().forEach(w -> w.run(model, origins, deadline, each)));
+        nanos = System.nanoTime() - start;
+        // add up the tries of each first move over all of the trees
+        int[] tries = new int[geometry.getNumColours()];
+        playouts = 0;
+        for (Worker w : workers) {
+            playouts += w.visits[0];
+            int first = w.firstChild[0];
+            for (int k=0; k<w.childCount[0]; k++) tries[w.move[first + k]] += w.visits[first + k];
+        }
+        totalPlayouts.add(playouts);
+        totalNanos.add(nanos);
+        int best = -1;
+        for (int c=0; c<tries.length; c++) {
+            if (tries[c] > 0 && (best < 0 || tries[c] > tries[best])) best = c;
+        }
+        return best;
+    }
+
+    public String toString() {
+        return "MCTS/" + policy + ": " + playouts + " playouts, " + Math.round(getPlayoutsPerSecond()) + "/s";
+    }
+
+    /**
+     * One thread's tree. The nodes are kept in arrays, and the children of a
+     * node are next to each other, starting at firstChild.
+     */
+    private class Worker {
+        private final SearchBoard board = new SearchBoard(geometry);
+        private SplittableRandom rng;
+        private int nodes;
+        /** The colour chosen to get to each node. */
+        private int[] move = new int[1024];
+        private int[] firstChild = new int[1024];
+        /** -1 if the children have not been made yet. */
+        private int[] childCount = new int[1024];
+        private int[] visits = new int[1024];
+        /** Wins, counting a draw as half, for the player who chose the move to get there. */
+        private double[] wins = new double[1024];
+        /** The nodes on the way down the tree in the current game. */
+        private int[] path = new int[64];
+
+        void run(FillerModel model, int[] origins, Deadline deadline, int maxPlayouts) {
+            board.setPosition(model, origins);
+            nodes = 0;
+            newNode(-1);
+            for (int n=0; n<maxPlayouts && (n == 0 || !deadline.expired()); n++) playout();
+        }
+
+        private void playout() {
+            int node = 0;
+            int depth = 0;
+            int player = 0;
+            // go down the tree
+            while (!board.isOver()) {
+                if (childCount[node] < 0) expand(node, player);
+                if (childCount[node] == 0) break;
+                int child = select(node);
+                board.makeMove(player, move[child]);
+                if (depth == path.length) path = Arrays.copyOf(path, 2 * depth);
+                path[depth++] = child;
+                player = 1 - player;
+                node = child;
+                if (visits[child] == 0) break;
+            }
+            // then play the rest of the game quickly
+            int moves = 0;
+            while (!board.isOver() && moves < MAX_PLAYOUT_MOVES) {
+                int c = policy.choose(board, player, rng);
+                if (c < 0) break;
+                board.makeMove(player, c);
+                player = 1 - player;
+                moves++;
+            }
+            // mostly whether player 0 won, but winning by more is a bit better,
+            // so that a player who is sure to win still takes what they can
+            int diff = board.getScore(0) - board.getScore(1);
+            double result = (diff > 0) ? 1.0 : (diff < 0) ? 0.0 : 0.5;
+            result = (1.0 - MARGIN) * result + MARGIN * (0.5 + 0.5 * diff / geometry.getNumValid());
+            while (board.getMovesMade() > 0) board.unmakeMove();
+            // the player who chose the move to each node alternates, starting with player 0
+            visits[0]++;
+            for (int d=0; d<depth; d++) {
+                int p = path[d];
+                visits[p]++;
+                wins[p] += (d % 2 == 0) ? result : 1.0 - result;
+            }
+        }
+
+        /** Make the children of <code>node</code>, in a random order. */
+        private void expand(int node, int player) {
+            int legal = board.legalMoves(player);
+            int n = Integer.bitCount(legal);
+            int first = nodes;
+            while (legal != 0) {
+                int c = Integer.numberOfTrailingZeros(legal);
+                legal &= legal - 1;
+                int k = newNode(c);
+                // shuffle as we go
+                int j = first + rng.nextInt(k - first + 1);
+                move[k] = move[j];
+                move[j] = c;
+            }
+            firstChild[node] = first;
+            childCount[node] = n;
+        }
+
+        private int select(int node) {
+            int first = firstChild[node];
+            int n = childCount[node];
+            double logParent = Math.log(Math.max(1, visits[node]));
+            int best = first;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int k=first; k<first+n; k++) {
+                if (visits[k] == 0) return k;
+                double value = wins[k] / visits[k] + EXPLORATION * Math.sqrt(logParent / visits[k]);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = k;
+                }
+            }
+            return best;
+        }
+
+        private int newNode(int c) {
+            if (nodes == move.length) {
+                int size = 2 * nodes;
+                move = Arrays.copyOf(move, size);
+                firstChild = Arrays.copyOf(firstChild, size);
+                childCount = Arrays.copyOf(childCount, size);
+                visits = Arrays.copyOf(visits, size);
+                wins = Arrays.copyOf(wins, size);
+            }
+            int k = nodes++;
+            move[k] = c;
+            childCount[k] = -1;
+            visits[k] = 0;
+            wins[k] = 0.0;
+            return k;
+        }
+    }
+}
@@ -30,94 +30,30 @@ public abstract class OptimalRobotPlayer extends RobotPlayer {
     protected void calculate(FillerModel model) {
         FillerModel.allocateTypes(model, origins, space);
         FillerModel.allocateDistance(model, space);
+        planned = false;
         //PopupFillerBoard.popup(new FillerModel(space.combineCountedAndDistance()), "combined");
     }
 
+    /** Robots which head for goals play the end of the game exactly. */
+    protected boolean useEndgameSolver() { return true; }
+
+    /** Finds the first colours on the way to every goal, kept from turn to turn. */
+    private GoalPlanner planner;
+    /** Whether the planner has been run on this turn's position. */
+    private boolean planned;
+
     /**
-     * @return the colour which will get us to the goal quickest.
+     * @return the set of colours which will get us to the goal quickest.
+     * The first goal asked about in a turn costs a pass over the board, and
+     * the rest cost nothing.
      */
-    protected BitSet getBestGoalColours(int goal) {
-        int[] distance = space.distance;
-        int distanceToGoal = distance[goal];
-        if (distanceToGoal <= 0) return new BitSet(FillerSettings.NUM_COLOURS);
-        /* We now know the distance to the goal.
-         * We have to find a sequence of locations with ever-decreasing distances
-         * until we get to locations which are distance 0, i.e. on the border.
-         * We then choose any myColour from those distance 0 locations.
-         */
-        space.resetListed();
-        boolean[] listed = space.listed;
-        int[] pieces = model.pieces;
-        int[] thisDistance = new int[distance.length];
-        int thisDistanceIndex = 0;
-        int[] lowerDistance = new int[distance.length];
-        int lowerDistanceIndex = 0;
-        thisDistance[thisDistanceIndex++] = goal;
-        // find all the pieces of the same colour joined to the goal
-        while (thisDistanceIndex > 0) {
-            int p = thisDistance[--thisDistanceIndex];
-            if (listed[p]) continue;
-            lowerDistance[lowerDistanceIndex++] = p;
-            listed[p] = true;
-            for (int q : FillerModel.neighbours(p)) {
-                if (listed[q]) continue;
-                if (pieces[q] == pieces[goal]) {
-                    thisDistance[thisDistanceIndex++] = q;
-                }
-            }
-        }
-        int[] tempArray = lowerDistance;
-        lowerDistance = thisDistance;
-        thisDistance = tempArray;
-        thisDistanceIndex = lowerDistanceIndex;
-        lowerDistanceIndex = 0;
-        // now for each distance, find all the pieces in the next distance down
-        while (distanceToGoal > 1) {
-            while (thisDistanceIndex > 0) {
-                int p = thisDistance[--thisDistanceIndex];
-                for (int q : FillerModel.neighbours(p)) {
-                    if (listed[q]) continue;
-                    int distq = distance[q];
-                    if (distq >= 0 && distq < distanceToGoal) {
-                        lowerDistance[lowerDistanceIndex++] = q;
-                        listed[q] = true;
-                    }
-                }
-            }
-            // add neighbours of same colour attached to pieces at the lower distance (yuk)
-            tempArray = lowerDistance;
-            lowerDistance = thisDistance;
-            thisDistance = tempArray;
-            thisDistanceIndex = lowerDistanceIndex;
-            lowerDistanceIndex = 0;
-            while (thisDistanceIndex > 0) {
-                int p = thisDistance[--thisDistanceIndex];
-                lowerDistance[lowerDistanceIndex++] = p;
-                for (int q : FillerModel.neighbours(p)) {
-                    if (listed[q]) continue;
-                    if (pieces[p] == pieces[q]) {
-                        thisDistance[thisDistanceIndex++] = q;
-                        listed[q] = true;
-                    }
-                }
-            }
-            /* We have finished with the thisDistance array, we now move down to
-             * the lower distance. To do this we swap the arrays and reset the
-             * index on the lowerDistance one.
-             */
-            tempArray = lowerDistance;
-            lowerDistance = thisDistance;
-            thisDistance = tempArray;
-            thisDistanceIndex = lowerDistanceIndex;
-            lowerDistanceIndex = 0;
-            distanceToGoal--;
-        }
-        /* All the locations at distance 0 which will get us to the target are in thisDistance. */
-        BitSet colours = new BitSet(FillerSettings.NUM_COLOURS);
-        for (int i=0; i<thisDistanceIndex; i++) {
-            colours.set(pieces[thisDistance[i]]);
+    protected int getBestGoalColours(int goal) {
+        if (!planned) {
+            if (planner == null || planner.getGeometry() != geometry) planner = new GoalPlanner(geometry);
+            planner.plan(model, space);
+            planned = true;
         }
-        return colours;
+        return planner.getFirstColours(goal);
     }
 
     public String getIcon() { return "armorine.png"; }
@@ -0,0 +1,117 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+import java.util.concurrent.*;
+
+/**
+ * An alpha-beta search done by several threads at once. Each thread has its
+ * own AlphaBetaSearch, and they all share one TranspositionTable. They all
+ * search the same position, but as they get to different parts of the tree
+ * at different times, each finds answers in the table that the others have
+ * worked out, and the main search, whose answer is used, gets deeper sooner.
+ * This is how chess programs usually search in parallel, as it needs no
+ * locking and nothing is ever waited for except the answer.
+ * <P>
+ * Half of the helpers look one move deeper than the main search, so that
+ * the table has deeper answers in it by the time the main search gets
+ * there. When the main search finishes, the helpers are stopped.
+ * <P>
+ * The searches run in the SearchPool, and one ParallelSearch uses no more
+ * helpers than there are threads in the pool, less the one for the main
+ * search. If the pool is busy with other games, the helpers wait for a
+ * thread like anybody else, and any which haven't started when the main
+ * search finishes don't start at all.
+ *
+ * @author John Farrell
+ */
+public class ParallelSearch {
+    private final BoardGeometry geometry;
+    private final TranspositionTable table;
+    /** searches[0] is the main search, the rest are helpers. */
+    private final AlphaBetaSearch[] searches;
+    private final ForkJoinTask<?>[] tasks;
+
+    /** Create a search using all of the threads in the SearchPool. */
+    public ParallelSearch(BoardGeometry geometry, Evaluator evaluator, boolean distance, boolean opponentDistance,
+                          TranspositionTable table) {
+        this(geometry, evaluator, distance, opponentDistance, table, SearchPool.getThreads());
+    }
+
+    public ParallelSearch(BoardGeometry geometry, Evaluator evaluator, boolean distance, boolean opponentDistance,
+                          TranspositionTable table, int threads) {
+        this.geometry = geometry;
+        this.table = table;
+        searches = new AlphaBetaSearch[Math.max(1, threads)];
+        tasks = new ForkJoinTask<?>[searches.length];
+        for (int t=0; t<searches.length; t++) {
+            searches[t] = new AlphaBetaSearch(geometry, evaluator, distance, opponentDistance);
+            searches[t].setTable(table);
+        }
+    }
+
+    public void setEvaluator(Evaluator evaluator, boolean distance, boolean opponentDistance) {
+        for (AlphaBetaSearch s : searches) s.setEvaluator(evaluator, distance, opponentDistance);
+    }
+
+    public BoardGeometry getGeometry() { return geometry; }
+
+    public TranspositionTable getTable() { return table; }
+
+    /** @return the number of threads the search uses, counting the main one. */
+    public int getThreads() { return searches.length; }
+
+    /** @return the number of positions looked at by all of the threads in the last search. */
+    public long getNodes() {
+        long nodes = 0;
+        for (AlphaBetaSearch s : searches) nodes += s.getNodes();
+        return nodes;
+    }
+
+    /** @return how many moves ahead the main search finished looking last time. */
+    public int getCompletedDepth() { return searches[0].getCompletedDepth(); }
+
+    /**
+     * Look further and further ahead until <code>depth</code> moves ahead
+     * have been searched or the deadline passes, as AlphaBetaSearch does.
+     * The helpers are left out when Seeds says the games must be
+     * reproducible, as what they find depends on how they are scheduled.
+     * @param origins origins[0] is the origin of the player to move.
+     * @return the best colour for the player to move, or -1 if there is no
+     * move.
+     */
+    public int search(final FillerModel model, final int[] origins, final int depth, final Deadline deadline) {
+        if (searches.length == 1 || Seeds.isReproducible()) return SearchPool.invoke(() -> searches[0].search(model, origins, depth, deadline));
+        // the table only needs to know about the search once
+        table.newSearch();
+        for (int t=1; t<searches.length; t++) {
+            final AlphaBetaSearch helper = searches[t];
+            final int d = depth + (t % 2);
+            helper.setStopped(false);
+            tasks[t] = SearchPool.fork(() -> helper.search(model, origins, d, deadline, false));
+        }
+        try {
+            return SearchPool.invoke(() -> searches[0].search(model, origins, depth, deadline, false));
+        } finally {
+            for (int t=1; t<searches.length; t++) searches[t].setStopped(true);
+            // wait for them to notice, so the searches can be used again; a
+            // cancelled task would count as done while it was still running
+            for (int t=1; t<searches.length; t++) {
+                tasks[t].join();
+                tasks[t] = null;
+            }
+        }
+    }
+}
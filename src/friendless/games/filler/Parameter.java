@@ -0,0 +1,76 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+/**
+ * A number which a robot uses to decide what to do, such as how many points
+ * it waits for before it changes its strategy, which was chosen by hand
+ * and which the Tuner may be able to choose better.
+ * <P>
+ * The value a robot starts with is the default, unless the system property
+ * filler.param.<i>name</i> is set, so that tuned values can be tried out
+ * without changing the code.
+ *
+ * @author John Farrell
+ */
+public final class Parameter {
+    /** The start of the names of the system properties which override defaults. */
+    public static final String PROPERTY_PREFIX = "filler.param.";
+
+    private final String name;
+    private final int defaultValue;
+    private final int min, max;
+
+    /**
+     * @param name the name of the parameter, which should be different from
+     * the names of all the others.
+     * @param min the smallest sensible value.
+     * @param max the largest sensible value.
+     */
+    public Parameter(String name, int defaultValue, int min, int max) {
+        if (min > max || defaultValue < min || defaultValue > max) {
+            throw new IllegalArgumentException(name + ": " + defaultValue + " not in " + min + ".." + max);
+        }
+        this.name = name;
+        this.defaultValue = defaultValue;
+        this.min = min;
+        this.max = max;
+    }
+
+    public String getName() { return name; }
+
+    public int getDefault() { return defaultValue; }
+
+    public int getMin() { return min; }
+
+    public int getMax() { return max; }
+
+    /** @return the name of the system property which overrides the default. */
+    public String getProperty() { return PROPERTY_PREFIX + name; }
+
+    /** @return the value a robot should start with. */
+    public int getValue() {
+        return clamp(Integer.getInteger(getProperty(), defaultValue));
+    }
+
+    /** @return the nearest sensible value to <code>value</code>. */
+    public int clamp(int value) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    public String toString() {
+        return name + "=" + getValue() + " [" + min + ".." + max + "]";
+    }
+}
@@ -34,9 +34,9 @@ public class PlayerWrappers {
         "HumanFillerPlayer", "RemotePlayer", "Sachin", "Dieter", "Isadora",
         "Margaret", "Rosita", "Luigi", "Makhaya", "Claudius", "Basil", "Wanda",
         "Mainoumi", "Omar", "Shirley", "Hugo", "Eldine", "Aleksandr", "Manuelito",
-        "Che", "Cochise", "Jefferson", "Chesterton", "Bronwyn", "Helen", "Blib" };
+        "Che", "Cochise", "Jefferson", "Chesterton", "Bronwyn", "Helen", "Blib", "Tamsin",
+        "Ngaio" };
     public static final String PLAYER_PACKAGE = "friendless.games.filler.player";
-    private static Random rng = new Random();
 
     private PlayerWrapper[] wrappers;
     private boolean[] selected;
@@ -123,9 +123,9 @@ public class PlayerWrappers {
     }
 
     /**
-     * "Sort" the players into a random order.
+     * "Sort" the players into a random order, taken from <code>rng</code>.
      */
-    public void sortByRandom() {
+    public void sortByRandom(SplittableRandom rng) {
         for (int i=wrappers.length-1; i>1; i--) {
             int j = rng.nextInt(i);
             PlayerWrapper pi = wrappers[i];
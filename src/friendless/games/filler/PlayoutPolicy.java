@@ -0,0 +1,125 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+import java.util.*;
+
+/**
+ * How moves are chosen when a game is played out quickly to the end on a
+ * SearchBoard, e.g. by MonteCarloSearch. The policies are the strategies of
+ * some of the simpler robots, done with the hexes next to each territory
+ * that the SearchBoard already knows about, rather than by classifying the
+ * whole board.
+ * <P>
+ * Policies keep no state, so one can be used by any number of threads.
+ *
+ * @author John Farrell
+ */
+public abstract class PlayoutPolicy {
+    /** Choose the colour which gets the most hexes, like Isadora. */
+    public static final PlayoutPolicy MOST = new Most();
+    /** Choose the colour of the hex furthest from home, like Basil. */
+    public static final PlayoutPolicy EXPAND = new Expand();
+    /** Choose any colour next to the territory, like Bronwyn. */
+    public static final PlayoutPolicy RANDOM_BORDER = new RandomBorder();
+
+    /** @return the policy with this name (case doesn't matter), or null. */
+    public static PlayoutPolicy forName(String name) {
+        if (name.equalsIgnoreCase(MOST.getName())) return MOST;
+        if (name.equalsIgnoreCase(EXPAND.getName())) return EXPAND;
+        if (name.equalsIgnoreCase(RANDOM_BORDER.getName())) return RANDOM_BORDER;
+        return null;
+    }
+
+    public abstract String getName();
+
+    /**
+     * @return the colour that <code>player</code> should choose, which is
+     * never their own or their opponent's colour, or -1 if there is none.
+     */
+    public abstract int choose(SearchBoard board, int player, SplittableRandom rng);
+
+    public String toString() { return getName(); }
+
+    /** @return a random colour from the set <code>choices</code>, or -1 if it is empty. */
+    protected static int chooseRandom(int choices, SplittableRandom rng) {
+        int count = Integer.bitCount(choices);
+        if (count == 0) return -1;
+        int r = rng.nextInt(count);
+        // drop the lowest r colours
+        while (r-- > 0) choices &= choices - 1;
+        return Integer.numberOfTrailingZeros(choices);
+    }
+
+    static class Most extends PlayoutPolicy {
+        public String getName() { return "most"; }
+
+        public int choose(SearchBoard board, int player, SplittableRandom rng) {
+            int choices = board.legalMoves(player) & board.frontierColours(player);
+            int before = board.getScore(player);
+            int favourites = 0;
+            int best = 0;
+            while (choices != 0) {
+                int c = Integer.numberOfTrailingZeros(choices);
+                choices &= choices - 1;
+                int gain = board.makeMove(player, c) - before;
+                board.unmakeMove();
+                if (gain > best) {
+                    favourites = 1 << c;
+                    best = gain;
+                } else if (gain == best) {
+                    favourites |= 1 << c;
+                }
+            }
+            if (favourites == 0) favourites = board.legalMoves(player);
+            return chooseRandom(favourites, rng);
+        }
+    }
+
+    static class Expand extends PlayoutPolicy {
+        public String getName() { return "expand"; }
+
+        public int choose(SearchBoard board, int player, SplittableRandom rng) {
+            BoardGeometry geometry = board.geometry;
+            int legal = board.legalMoves(player);
+            int origin = board.getOrigin(player);
+            int ox = geometry.getX(origin);
+            int oy = geometry.getY(origin);
+            int furthest = -1;
+            int favourite = -1;
+            for (int k=0; k<board.getFrontierSize(player); k++) {
+                int p = board.getFrontier(player, k);
+                if (board.isOwned(p) || (legal & (1 << board.getPiece(p))) == 0) continue;
+                int dist = Math.abs(geometry.getX(p) - ox) + Math.abs(geometry.getY(p) - oy);
+                if (dist > furthest) {
+                    favourite = board.getPiece(p);
+                    furthest = dist;
+                }
+            }
+            if (favourite < 0) favourite = chooseRandom(legal, rng);
+            return favourite;
+        }
+    }
+
+    static class RandomBorder extends PlayoutPolicy {
+        public String getName() { return "random"; }
+
+        public int choose(SearchBoard board, int player, SplittableRandom rng) {
+            int legal = board.legalMoves(player);
+            int choices = legal & board.frontierColours(player);
+            return chooseRandom((choices == 0) ? legal : choices, rng);
+        }
+    }
+}
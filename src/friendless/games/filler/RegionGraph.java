@@ -0,0 +1,379 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+import java.util.*;
+
+/**
+ * The board seen as a graph of regions, where a region is a set of joined
+ * hexes of the same colour. A player's territory is always exactly one
+ * region, and a move merges that region with the neighbouring regions of the
+ * chosen colour, so the graph can be kept up to date cheaply as the game
+ * goes on.
+ * <P>
+ * Neighbouring regions are always different colours, so moving from one
+ * region to the next always costs exactly one turn. That makes the territory
+ * and distance calculations much simpler on regions than on hexes.
+ *
+ * @author John Farrell
+ */
+public class RegionGraph {
+    /* Flags used while classifying regions. */
+    private static final int MY_BORDER = 1;
+    private static final int HIS_BORDER = 2;
+    private static final int MY_REACH = 4;
+    private static final int HIS_REACH = 8;
+
+    /** regionOf[i] is the region which hex i belongs to, or -1 for invalid hexes. */
+    final int[] regionOf;
+    /** The colour of each region. */
+    final int[] colour;
+    /** The number of hexes in each region. */
+    final int[] size;
+    /** The hexes of each region are kept in a linked list through next. */
+    private final int[] first, last, next;
+    /**
+     * The regions next to each region. These may mention regions which have
+     * since been merged into another, so use find() on them.
+     */
+    private final int[][] adjacent;
+    /** alias[r] is the region that r was merged into, or r if it is still alive. */
+    private final int[] alias;
+    /** Number of region identifiers in use, including those merged away. */
+    final int numRegions;
+    /** Used to avoid listing the same neighbour twice when merging. */
+    private final int[] stamp;
+    private int stampValue;
+    /** The shape of the board. */
+    private final BoardGeometry geometry;
+
+    public RegionGraph(FillerModel model) {
+        geometry = model.geometry;
+        int size = geometry.getSize();
+        int[] pieces = model.pieces;
+        int[] hexFirst = geometry.first;
+        int[] hexAdjacent = geometry.adjacent;
+        regionOf = new int[size];
+        next = new int[size];
+        int[] tempFirst = new int[size];
+        int[] tempLast = new int[size];
+        int[] tempColour = new int[size];
+        int[] tempSize = new int[size];
+        int[] stack = new int[size];
+        for (int i=0; i<size; i++) {
+            regionOf[i] = -1;
+            next[i] = -1;
+        }
+        // flood fill each region in turn
+        int n = 0;
+        for (int i=0; i<size; i++) {
+            if (!geometry.valid(i) || regionOf[i] >= 0) continue;
+            int c = pieces[i];
+            regionOf[i] = n;
+            tempColour[n] = c;
+            tempFirst[n] = i;
+            int tail = i;
+            int count = 0;
+            int idx = 0;
+            stack[idx++] = i;
+            while (idx > 0) {
+                int p = stack[--idx];
+                count++;
+                for (int k=hexFirst[p]; k<hexFirst[p+1]; k++) {
+                    int q = hexAdjacent[k];
+                    if (regionOf[q] < 0 && pieces[q] == c) {
+                        regionOf[q] = n;
+                        next[tail] = q;
+                        tail = q;
+                        stack[idx++] = q;
+                    }
+                }
+            }
+            tempLast[n] = tail;
+            tempSize[n] = count;
+            n++;
+        }
+        numRegions = n;
+        first = new int[n];
+        last = new int[n];
+        colour = new int[n];
+        this.size = new int[n];
+        alias = new int[n];
+        stamp = new int[n];
+        System.arraycopy(tempFirst, 0, first, 0, n);
+        System.arraycopy(tempLast, 0, last, 0, n);
+        System.arraycopy(tempColour, 0, colour, 0, n);
+        System.arraycopy(tempSize, 0, this.size, 0, n);
+        // find the neighbours of each region
+        adjacent = new int[n][];
+        for (int r=0; r<n; r++) {
+            alias[r] = r;
+            stampValue++;
+            stamp[r] = stampValue;
+            int count = 0;
+            for (int p=first[r]; p>=0; p=next[p]) {
+                for (int k=hexFirst[p]; k<hexFirst[p+1]; k++) {
+                    int q = hexAdjacent[k];
+                    int s = regionOf[q];
+                    if (stamp[s] != stampValue) {
+                        stamp[s] = stampValue;
+                        stack[count++] = s;
+                    }
+                }
+            }
+            adjacent[r] = new int[count];
+            System.arraycopy(stack, 0, adjacent[r], 0, count);
+        }
+    }
+
+    /** @return the region that region r is now part of. */
+    int find(int r) {
+        int root = r;
+        while (alias[root] != root) root = alias[root];
+        while (alias[r] != root) {
+            int a = alias[r];
+            alias[r] = root;
+            r = a;
+        }
+        return root;
+    }
+
+    /**
+     * The player who started at <code>origin</code> has changed the colour of
+     * their territory to <code>c</code>. Merge their region with the
+     * neighbouring regions of that colour.
+     */
+    void changeColour(int origin, int c) {
+        int m = regionOf[origin];
+        if (colour[m] == c) return;
+        colour[m] = c;
+        stampValue++;
+        stamp[m] = stampValue;
+        int[] oldAdjacent = adjacent[m];
+        int[] merged = new int[oldAdjacent.length];
+        int count = 0;
+        // first find the regions to be absorbed, so they are not listed as neighbours
+        for (int a : oldAdjacent) {
+            a = find(a);
+            if (stamp[a] == stampValue) continue;
+            if (colour[a] == c) {
+                stamp[a] = stampValue;
+                merged[count++] = a;
+            }
+        }
+        int numMerged = count;
+        int[] result = new int[oldAdjacent.length];
+        int numResult = 0;
+        for (int a : oldAdjacent) {
+            a = find(a);
+            if (stamp[a] == stampValue) continue;
+            stamp[a] = stampValue;
+            result = add(result, numResult++, a);
+        }
+        for (int k=0; k<numMerged; k++) {
+            int a = merged[k];
+            // move the hexes of a into m
+            for (int p=first[a]; p>=0; p=next[p]) regionOf[p] = m;
+            next[last[m]] = first[a];
+            last[m] = last[a];
+            size[m] += size[a];
+            size[a] = 0;
+            alias[a] = m;
+            for (int b : adjacent[a]) {
+                b = find(b);
+                if (stamp[b] == stampValue) continue;
+                stamp[b] = stampValue;
+                result = add(result, numResult++, b);
+            }
+            adjacent[a] = null;
+        }
+        int[] trimmed = new int[numResult];
+        System.arraycopy(result, 0, trimmed, 0, numResult);
+        adjacent[m] = trimmed;
+    }
+
+    private static int[] add(int[] array, int index, int value) {
+        if (index == array.length) {
+            int[] bigger = new int[array.length * 2 + 4];
+            System.arraycopy(array, 0, bigger, 0, array.length);
+            array = bigger;
+        }
+        array[index] = value;
+        return array;
+    }
+
+    /**
+     * The region version of FillerModel.allocateTypes. The classification is
+     * done once per region, and then copied out to the hexes.
+     * @return false if the calculation could not be done on regions, which
+     * happens if both players are in the same region.
+     */
+    boolean allocateTypes(int[] origins, FillerPlayerSpace space) {
+        int mine = regionOf[origins[0]];
+        int his = regionOf[origins[1]];
+        if (mine == his) return false;
+        int[] flags = space.regionFlags;
+        int[] types = space.regionType;
+        int[] queue = space.border;
+        for (int r=0; r<numRegions; r++) flags[r] = 0;
+        for (int a : adjacent[his]) flags[find(a)] |= HIS_BORDER;
+        for (int a : adjacent[mine]) flags[find(a)] |= MY_BORDER;
+        flags[mine] = 0;
+        flags[his] = 0;
+        // find out who can reach each region without going through the other
+        reach(mine, his, MY_BORDER, MY_REACH, flags, queue);
+        reach(mine, his, HIS_BORDER, HIS_REACH, flags, queue);
+        for (int r=0; r<numRegions; r++) {
+            if (alias[r] != r) continue;
+            int f = flags[r];
+            int t;
+            if (r == mine) {
+                t = FillerModel.MINE;
+            } else if (r == his) {
+                t = FillerModel.HIS;
+            } else if ((f & (MY_BORDER | HIS_BORDER)) == (MY_BORDER | HIS_BORDER)) {
+                // the hexes next to me are shared, the rest are his border
+                t = FillerModel.HIS_BORDER;
+            } else if ((f & MY_BORDER) != 0) {
+                t = ((f & HIS_REACH) != 0) ? FillerModel.BORDER : FillerModel.INTERNAL_BORDER;
+            } else if ((f & HIS_BORDER) != 0) {
+                t = ((f & MY_REACH) != 0) ? FillerModel.HIS_BORDER : FillerModel.HIS_INTERNAL_BORDER;
+            } else if ((f & MY_REACH) != 0) {
+                t = ((f & HIS_REACH) != 0) ? FillerModel.FREE : FillerModel.REACHABLE;
+            } else if ((f & HIS_REACH) != 0) {
+                t = FillerModel.HIS_REACHABLE;
+            } else {
+                t = FillerModel.VACANT;
+            }
+            types[r] = t;
+        }
+        // copy the results out to the hexes
+        int[] counted = space.counted;
+        int[] hexFirst = geometry.first;
+        int[] hexAdjacent = geometry.adjacent;
+        boolean[] reachable = space.reachable;
+        boolean[] hisReachable = space.hisReachable;
+        for (int i=0; i<counted.length; i++) {
+            int r = regionOf[i];
+            if (r < 0) {
+                counted[i] = FillerModel.VACANT;
+                reachable[i] = false;
+                hisReachable[i] = false;
+            } else {
+                int f = flags[r];
+                counted[i] = types[r];
+                reachable[i] = (f & MY_REACH) != 0;
+                hisReachable[i] = (f & HIS_REACH) != 0;
+            }
+        }
+        for (int r=0; r<numRegions; r++) {
+            if (alias[r] != r || (flags[r] & (MY_BORDER | HIS_BORDER)) != (MY_BORDER | HIS_BORDER)) continue;
+            for (int p=first[r]; p>=0; p=next[p]) {
+                for (int k=hexFirst[p]; k<hexFirst[p+1]; k++) {
+                    int q = hexAdjacent[k];
+                    if (regionOf[q] == mine) {
+                        counted[p] = FillerModel.SHARED_BORDER;
+                        break;
+                    }
+                }
+            }
+        }
+        space.regions = this;
+        return true;
+    }
+
+    /**
+     * Starting from the regions marked with <code>borderFlag</code>, mark
+     * all regions which can be reached without going through either
+     * player's territory with <code>reachFlag</code>.
+     */
+    private void reach(int mine, int his, int borderFlag, int reachFlag, int[] flags, int[] queue) {
+        int head = 0;
+        int tail = 0;
+        for (int r=0; r<numRegions; r++) {
+            if ((flags[r] & borderFlag) != 0 && alias[r] == r) {
+                flags[r] |= reachFlag;
+                queue[tail++] = r;
+            }
+        }
+        while (head < tail) {
+            int r = queue[head++];
+            for (int a : adjacent[r]) {
+                a = find(a);
+                if (a == mine || a == his || (flags[a] & reachFlag) != 0) continue;
+                flags[a] |= reachFlag;
+                queue[tail++] = a;
+            }
+        }
+    }
+
+    /**
+     * The region version of FillerModel.allocateDistance. Assumes that
+     * allocateTypes has just been done on this graph with this space.
+     */
+    void allocateDistance(FillerPlayerSpace space) {
+        distances(space, space.distance, FillerModel.BORDER, FillerModel.MUST_BE_MINE, FillerModel.MUST_BE_HIS);
+    }
+
+    /**
+     * The region version of FillerModel.allocateOpponentDistance. Assumes
+     * that allocateTypes has just been done on this graph with this space.
+     */
+    void allocateOpponentDistance(FillerPlayerSpace space) {
+        distances(space, space.opponentDistance, FillerModel.HIS_BORDER, FillerModel.MUST_BE_HIS, FillerModel.MUST_BE_MINE);
+    }
+
+    /**
+     * Breadth first search over the regions. Regions which are on the
+     * border (or shared border) are one turn away, and every step to a
+     * neighbouring region costs one more turn.
+     */
+    private void distances(FillerPlayerSpace space, int[] distance, int borderType, BitSet owned, BitSet unreachable) {
+        int[] types = space.regionType;
+        int[] flags = space.regionFlags;
+        int[] regionDistance = space.regionDistance;
+        int[] queue = space.border;
+        int head = 0;
+        int tail = 0;
+        for (int r=0; r<numRegions; r++) {
+            if (alias[r] != r) continue;
+            int t = types[r];
+            if (owned.get(t)) {
+                regionDistance[r] = FillerModel.NO_DISTANCE;
+            } else if (unreachable.get(t)) {
+                regionDistance[r] = FillerModel.UNREACHABLE_DISTANCE;
+            } else if (t == borderType || (flags[r] & (MY_BORDER | HIS_BORDER)) == (MY_BORDER | HIS_BORDER)) {
+                regionDistance[r] = 1;
+                queue[tail++] = r;
+            } else {
+                regionDistance[r] = FillerModel.UNKNOWN_DISTANCE;
+            }
+        }
+        while (head < tail) {
+            int r = queue[head++];
+            int d = regionDistance[r] + 1;
+            for (int a : adjacent[r]) {
+                a = find(a);
+                if (regionDistance[a] != FillerModel.UNKNOWN_DISTANCE) continue;
+                regionDistance[a] = d;
+                queue[tail++] = a;
+            }
+        }
+        for (int i=0; i<distance.length; i++) {
+            int r = regionOf[i];
+            distance[i] = (r < 0) ? FillerModel.UNREACHABLE_DISTANCE : regionDistance[r];
+        }
+    }
+}
@@ -14,8 +14,6 @@
 
 package friendless.games.filler;
 
-import java.util.*;
-
 /**
  * A computer player.
  * Most of the basic strategic moves for medium skill robots are implemented here.
@@ -23,12 +21,34 @@ import java.util.*;
  * @author John Farrell
  */
 public abstract class RobotPlayer extends DumbRobotPlayer {
-    protected final BitSet NO_COLOURS = new BitSet(FillerSettings.NUM_COLOURS);
+    /*
+     * Sets of types are represented as int bit masks, with bit t set if
+     * type t is in the set.
+     */
+    /** Hexes I could get this turn. */
+    protected static final int GAIN_TYPES =
+        types(FillerModel.BORDER, FillerModel.SHARED_BORDER, FillerModel.INTERNAL_BORDER);
+    /** Hexes I could get this turn which he might also get. */
+    protected static final int FREE_GAIN_TYPES = types(FillerModel.BORDER, FillerModel.SHARED_BORDER);
+    /** Hexes he could get next turn. */
+    protected static final int OPPONENT_GAIN_TYPES = types(FillerModel.HIS_BORDER, FillerModel.SHARED_BORDER);
+    /** Hexes which either of us might still get. */
+    protected static final int UNDECIDED_TYPES =
+        types(FillerModel.BORDER, FillerModel.SHARED_BORDER, FillerModel.HIS_BORDER, FillerModel.FREE);
+
     protected FillerPlayerSpace space;
     protected FillerModel model;
     protected int score;
     protected int turn;
     protected int realScore;
+    /** The number of hexes of each colour, reused by countSet. */
+    private int[] colourCount;
+    /** The number of hexes of each type, reused by setScores and countHowMany. */
+    private final int[] typeCount = new int[FillerModel.NUM_TYPES];
+    /** The loops which scan the board. */
+    protected static final ScanKernel scan = ScanKernel.get();
+    /** For playing the end of the game perfectly, made when first needed. */
+    private EndgameSolver endgame;
 
     protected RobotPlayer() {
         space = new FillerPlayerSpace();
@@ -39,15 +59,24 @@ public abstract class RobotPlayer extends DumbRobotPlayer {
      * This method is part of the implementation of the FillerPlayer interface.
      * It does some calculations to help the strategies defined in this class,
      * and delegates the actual choice of move to the abstract method
-     * <code>turn()</code>.
+     * <code>turn()</code>, unless the robot uses the endgame solver and the
+     * game is near enough to the end for <code>endgameTurn()</code> to know
+     * the best move.
      */
     public int takeTurn(FillerModel model, int otherPlayerColour) {
         turn++;
         this.model = model;
+        this.geometry = model.getGeometry();
+        if (space.geometry != geometry) space = new FillerPlayerSpace(geometry);
+        if (colourCount == null || colourCount.length != geometry.getNumColours()) {
+            colourCount = new int[geometry.getNumColours()];
+        }
         this.otherPlayerColour = otherPlayerColour;
         calculate(model);
         setScores();
-        myColour = turn();
+        // turn() may look at myColour, so it mustn't be changed before it's called
+        int c = useEndgameSolver() ? endgameTurn() : -1;
+        myColour = (c >= 0) ? c : turn();
         if (myColour < 0) {
             myColour = randomTurn();
             // a debugging message - this suggests that your algorithm doesn't cover enough bizarre cases,
@@ -65,67 +94,84 @@ public abstract class RobotPlayer extends DumbRobotPlayer {
         //PopupFillerBoard.popup(new FillerModel(space.counted), "calculated");
     }
 
+    /**
+     * Whether to play the end of the game with <code>endgameTurn()</code>
+     * rather than <code>turn()</code>. Robots which want to should override
+     * this to return true; the others play the end of the game their own way.
+     */
+    protected boolean useEndgameSolver() {
+        return false;
+    }
+
+    /**
+     * If there are only a few regions left which either of us could get,
+     * work out exactly which colour gets me the most of them if we both play
+     * as well as possible.
+     * @return the best colour, or -1 if it is too early to tell.
+     */
+    protected int endgameTurn() {
+        int c = mostIfWinTurn();
+        if (c >= 0) return c;
+        if (endgame == null || endgame.getGeometry() != geometry) endgame = new EndgameSolver(geometry);
+        return endgame.solve(model, space, origins);
+    }
+
+    /**
+     * @return <code>points</code> on the standard board, scaled to the same
+     * share of the points needed to win on the board being played on.
+     */
+    protected int scalePoints(int points) {
+        return (int) ((long) points * geometry.getPointsToWin() / FillerSettings.POINTS_TO_WIN);
+    }
+
     /** Figure out the score given the current counting in space */
     protected void setScores() {
-        int[] counted = space.counted;
-        score = 0;
-        realScore = 0;
-        for (int c : counted) {
-            switch (c) {
-                case FillerModel.MINE:
-                    score++;
-                    realScore++;
-                    break;
-                case FillerModel.REACHABLE:
-                    realScore++;
-                    break;
-                default:
-                    break;
-            }
-        }
+        scan.typeCounts(space.counted, typeCount);
+        score = typeCount[FillerModel.MINE];
+        realScore = score + typeCount[FillerModel.REACHABLE];
+    }
+
+    /** @return the set of the types given. */
+    protected static int types(int... ts) {
+        int result = 0;
+        for (int t : ts) result |= 1 << t;
+        return result;
     }
 
     /**
      * Count the number of pieces of each colour for all of the types defined.
      * Make sure that the other player's colour gets a bad score.
+     * The array returned is overwritten by the next call.
      */
-    protected int[] countSet(BitSet allowed) {
-        int[] counted = space.counted;
-        int[] count = new int[FillerSettings.NUM_COLOURS];
-        for (int i=0; i<counted.length; i++) {
-            if (allowed.get(counted[i])) count[model.pieces[i]]++;
-        }
+    protected int[] countSet(int allowed) {
+        int[] count = colourCount;
+        scan.colourCounts(space.counted, model.pieces, allowed, count);
         // make sure the other player's myColour is not chosen
         count[otherPlayerColour] = -1;
         return count;
     }
 
-    int countHowMany(BitSet allowed) {
-        int[] counted = space.counted;
-        int total = 0;
-        for (int c : counted) {
-            if (allowed.get(c)) total++;
-        }
-        return total;
+    int countHowMany(int allowed) {
+        scan.typeCounts(space.counted, typeCount);
+        return ScanKernel.countTypes(typeCount, allowed);
     }
 
     /**
      * @return the colour which has the highest occurrence in the types defined
      * in the set <code>allowed</code>.
      */
-    int mostInSetTurn(BitSet allowed) {
+    int mostInSetTurn(int allowed) {
         int[] count = countSet(allowed);
         // choose any of the best colours
-        BitSet favourites = null;
+        int favourites = 0;
         int best = 0;
-        for (int i=0; i<FillerSettings.NUM_COLOURS; i++) {
+        for (int i=0; i<count.length; i++) {
             if (count[i] <= 0) continue;
             if (count[i] > best) {
-                favourites = (BitSet) NO_COLOURS.clone();
-                favourites.set(i);
+                favourites = 1 << i;
                 best = count[i];
             } else if (count[i] == best) {
-                favourites.set(i);
+                favourites |= 1 << i;
             }
         }
         return chooseRandom(favourites);
@@ -133,11 +179,7 @@ public abstract class RobotPlayer extends DumbRobotPlayer {
 
     /** Chooses a colour to get the most points immediately **/
     public int mostTurn() {
-        BitSet b = (BitSet) NO_COLOURS.clone();
-        b.set(FillerModel.BORDER);
-        b.set(FillerModel.SHARED_BORDER);
-        b.set(FillerModel.INTERNAL_BORDER);
-        return mostInSetTurn(b);
+        return mostInSetTurn(GAIN_TYPES);
     }
 
     /**
@@ -145,20 +187,11 @@ public abstract class RobotPlayer extends DumbRobotPlayer {
      * i.e. that which is available to this player and to the opponent.
      */
     public int mostFreeTurn() {
-        BitSet b = (BitSet) NO_COLOURS.clone();
-        b.set(FillerModel.BORDER);
-        b.set(FillerModel.SHARED_BORDER);
-        return mostInSetTurn(b);
+        return mostInSetTurn(FREE_GAIN_TYPES);
     }
 
     public boolean noUndecidedSpaces() {
-        BitSet b = (BitSet) NO_COLOURS.clone();
-        b.set(FillerModel.BORDER);
-        b.set(FillerModel.SHARED_BORDER);
-        b.set(FillerModel.HIS_BORDER);
-        b.set(FillerModel.FREE);
-        int n = countHowMany(b);
-        return n == 0;
+        return countHowMany(UNDECIDED_TYPES) == 0;
     }
 
     /**
@@ -166,10 +199,7 @@ public abstract class RobotPlayer extends DumbRobotPlayer {
      * his next turn.
      */
     public int opponentMostTurn() {
-        BitSet b = (BitSet) NO_COLOURS.clone();
-        b.set(FillerModel.HIS_BORDER);
-        b.set(FillerModel.SHARED_BORDER);
-        return mostInSetTurn(b);
+        return mostInSetTurn(OPPONENT_GAIN_TYPES);
     }
 
 
@@ -227,7 +257,7 @@ public abstract class RobotPlayer extends DumbRobotPlayer {
             switch (counted[i]) {
                 case FillerModel.BORDER:
                 case FillerModel.SHARED_BORDER:
-                    if (FillerModel.isPerimeter(i) && model.pieces[i] != otherPlayerColour) {
+                    if (geometry.isPerimeter(i) && model.pieces[i] != otherPlayerColour) {
                         int dist = sideDistance(i,o);
                         if (dist > furthest) {
                             favourite = model.pieces[i];
@@ -245,7 +275,7 @@ public abstract class RobotPlayer extends DumbRobotPlayer {
             switch (counted[i]) {
                 case FillerModel.BORDER:
                 case FillerModel.SHARED_BORDER:
-                    if (FillerModel.isPerimeter(i) && model.pieces[i] != otherPlayerColour) {
+                    if (geometry.isPerimeter(i) && model.pieces[i] != otherPlayerColour) {
                         return model.pieces[i];
                     }
             }
@@ -253,21 +283,15 @@ public abstract class RobotPlayer extends DumbRobotPlayer {
         return -1;
     }
 
-    public BitSet allColoursOnBorder() {
-        BitSet b = new BitSet(FillerSettings.NUM_COLOURS);
-        int[] counted = space.counted;
-        for (int i=0; i<counted.length; i++) {
-            if (counted[i] == FillerModel.BORDER || counted[i] == FillerModel.SHARED_BORDER) {
-                b.set(model.pieces[i]);
-            }
-        }
-        return b;
+    /** @return the set of colours on my border. */
+    public int allColoursOnBorder() {
+        return scan.colourSet(space.counted, model.pieces, FREE_GAIN_TYPES);
     }
 
     /** Choose a random colour. */
     public int randomBorderTurn() {
-        BitSet b = allColoursOnBorder();
-        b.set(otherPlayerColour, false);
+        int b = allColoursOnBorder();
+        b &= ~(1 << otherPlayerColour);
         return chooseRandom(b);
     }
 
@@ -328,20 +352,16 @@ public abstract class RobotPlayer extends DumbRobotPlayer {
      * Figure out how many points each colour is worth. If we can win this move, return that colour.
      */
     public int mostIfWinTurn() {
-        BitSet b = (BitSet) NO_COLOURS.clone();
-        b.set(FillerModel.BORDER);
-        b.set(FillerModel.SHARED_BORDER);
-        b.set(FillerModel.INTERNAL_BORDER);
-        int[] count = countSet(b);
+        int[] count = countSet(GAIN_TYPES);
         int favourite = -1;
         int best = -1;
-        for (int i=0; i<FillerSettings.NUM_COLOURS; i++) {
+        for (int i=0; i<count.length; i++) {
             if (count[i] > best) {
                 favourite = i;
                 best = count[i];
             }
         }
-        if (best + score >= FillerSettings.POINTS_TO_WIN) {
+        if (best + score >= geometry.getPointsToWin()) {
             return favourite;
         } else {
             return -1;
@@ -0,0 +1,191 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+import java.util.*;
+
+/**
+ * The loops which scan the whole board after it has been classified by
+ * FillerModel.allocateTypes: counting hexes of each type, counting the
+ * colours of hexes of some types, and adding up distances.
+ * <P>
+ * There is more than one implementation so that they can be compared. The
+ * one used is chosen when the program starts by the system property
+ * <code>filler.scan</code>, which may be <code>scalar</code> for the plain
+ * loops, <code>unrolled</code> (the default) for loops which do four hexes
+ * at a time with independent sums, <code>vector</code> for VectorScanKernel,
+ * which needs the Vector API and is compiled separately from src-vector,
+ * or the name of a subclass of this class with a public no-argument
+ * constructor. Implementations which can't be loaded are replaced by the
+ * unrolled loops. Implementations must not keep any state,
+ * as the same one is used by all players at once.
+ * <P>
+ * Sets of types and sets of colours are int bit masks, as in RobotPlayer.
+ *
+ * @author John Farrell
+ */
+public abstract class ScanKernel {
+    /** The name of the system property which chooses the implementation. */
+    public static final String PROPERTY = "filler.scan";
+    private static final ScanKernel kernel = create(System.getProperty(PROPERTY, "unrolled"));
+
+    /** @return the implementation chosen for this run. */
+    public static ScanKernel get() { return kernel; }
+
+    private static ScanKernel create(String name) {
+        if (name.equals("scalar")) return new Scalar();
+        if (name.equals("unrolled")) return new Unrolled();
+        // loaded by name, so that nothing else needs the Vector API to compile
+        if (name.equals("vector")) name = ScanKernel.class.getPackage().getName() + ".VectorScanKernel";
+        try {
+            return (ScanKernel) Class.forName(name).getDeclaredConstructor().newInstance();
+        } catch (Exception | LinkageError ex) {
+            System.out.println("Can't use " + name + " for board scans: " + ex);
+            return new Unrolled();
+        }
+    }
+
+    /** @return the name of this implementation. */
+    public abstract String getName();
+
+    /**
+     * Set <code>counts[t]</code> to the number of hexes in
+     * <code>counted</code> which are type t.
+     */
+    public abstract void typeCounts(int[] counted, int[] counts);
+
+    /**
+     * Set <code>counts[c]</code> to the number of hexes which are colour c
+     * and of a type in <code>types</code>. Hexes off the board must not be
+     * of a type in <code>types</code>.
+     */
+    public abstract void colourCounts(int[] counted, int[] pieces, int types, int[] counts);
+
+    /** @return the set of colours of hexes which are of a type in <code>types</code>. */
+    public abstract int colourSet(int[] counted, int[] pieces, int types);
+
+    /**
+     * @return the sum of <code>distance</code>, counting hexes which are
+     * UNREACHABLE_DISTANCE as <code>unreachable</code>.
+     */
+    public abstract int distanceSum(int[] distance, int unreachable);
+
+    /** @return the number of hexes of a type in <code>types</code>, given the counts of each type. */
+    public static int countTypes(int[] typeCounts, int types) {
+        int total = 0;
+        for (int t=0; t<typeCounts.length; t++) {
+            if ((types & (1 << t)) != 0) total += typeCounts[t];
+        }
+        return total;
+    }
+
+    public String toString() { return getName(); }
+
+    /** One hex at a time. */
+    static class Scalar extends ScanKernel {
+        public String getName() { return "scalar"; }
+
+        public void typeCounts(int[] counted, int[] counts) {
+            Arrays.fill(counts, 0);
+            for (int t : counted) counts[t]++;
+        }
+
+        public void colourCounts(int[] counted, int[] pieces, int types, int[] counts) {
+            Arrays.fill(counts, 0);
+            for (int i=0; i<counted.length; i++) {
+                if ((types & (1 << counted[i])) != 0) counts[pieces[i]]++;
+            }
+        }
+
+        public int colourSet(int[] counted, int[] pieces, int types) {
+            int result = 0;
+            for (int i=0; i<counted.length; i++) {
+                if ((types & (1 << counted[i])) != 0) result |= 1 << pieces[i];
+            }
+            return result;
+        }
+
+        public int distanceSum(int[] distance, int unreachable) {
+            int total = 0;
+            for (int d : distance) {
+                total += (d == FillerModel.UNREACHABLE_DISTANCE) ? unreachable : d;
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Four hexes at a time. The sums for the four hexes are kept separately
+     * so that the processor can work on them at the same time, and the tests
+     * of types are done with shifts rather than branches where possible.
+     */
+    static class Unrolled extends Scalar {
+        public String getName() { return "unrolled"; }
+
+        public void typeCounts(int[] counted, int[] counts) {
+            Arrays.fill(counts, 0);
+            int n = counted.length & ~3;
+            int i = 0;
+            for (; i<n; i+=4) {
+                counts[counted[i]]++;
+                counts[counted[i+1]]++;
+                counts[counted[i+2]]++;
+                counts[counted[i+3]]++;
+            }
+            for (; i<counted.length; i++) counts[counted[i]]++;
+        }
+
+        public int colourSet(int[] counted, int[] pieces, int types) {
+            // a hex off the board has colour -1, but it is never selected,
+            // and shifting 0 by -1 is still 0
+            int s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+            int n = counted.length & ~3;
+            int i = 0;
+            for (; i<n; i+=4) {
+                s0 |= ((types >>> counted[i]) & 1) << pieces[i];
+                s1 |= ((types >>> counted[i+1]) & 1) << pieces[i+1];
+                s2 |= ((types >>> counted[i+2]) & 1) << pieces[i+2];
+                s3 |= ((types >>> counted[i+3]) & 1) << pieces[i+3];
+            }
+            for (; i<counted.length; i++) s0 |= ((types >>> counted[i]) & 1) << pieces[i];
+            return s0 | s1 | s2 | s3;
+        }
+
+        public int distanceSum(int[] distance, int unreachable) {
+            // add up everything, then correct for the unreachable hexes
+            int s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+            int u0 = 0, u1 = 0, u2 = 0, u3 = 0;
+            int n = distance.length & ~3;
+            int i = 0;
+            for (; i<n; i+=4) {
+                int d0 = distance[i], d1 = distance[i+1], d2 = distance[i+2], d3 = distance[i+3];
+                s0 += d0;
+                s1 += d1;
+                s2 += d2;
+                s3 += d3;
+                u0 += (d0 == FillerModel.UNREACHABLE_DISTANCE) ? 1 : 0;
+                u1 += (d1 == FillerModel.UNREACHABLE_DISTANCE) ? 1 : 0;
+                u2 += (d2 == FillerModel.UNREACHABLE_DISTANCE) ? 1 : 0;
+                u3 += (d3 == FillerModel.UNREACHABLE_DISTANCE) ? 1 : 0;
+            }
+            for (; i<distance.length; i++) {
+                s0 += distance[i];
+                u0 += (distance[i] == FillerModel.UNREACHABLE_DISTANCE) ? 1 : 0;
+            }
+            int u = u0 + u1 + u2 + u3;
+            return s0 + s1 + s2 + s3 + u * (unreachable - FillerModel.UNREACHABLE_DISTANCE);
+        }
+    }
+}
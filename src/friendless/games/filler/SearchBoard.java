@@ -0,0 +1,269 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+import java.util.*;
+
+/**
+ * A board for searching ahead on, which moves can be made on and then taken
+ * back again without copying the board.
+ * <P>
+ * Player 0 is the player who started at <code>origins[0]</code>, player 1
+ * the other one. For each player the board keeps their territory and the
+ * hexes next to it, in lists which only ever grow while moves are made, so
+ * taking a move back just means cutting the lists back to the length they
+ * were. Hexes which were next to a territory and have since been taken by
+ * somebody stay on the list, and are skipped over.
+ * <P>
+ * Making a move doesn't change the colours of the hexes in the territory
+ * straight away, as only the colours of hexes which nobody owns matter for
+ * working out what happens. The territories are repainted when somebody
+ * asks for the model, so playing games out to the end is quick.
+ *
+ * @author John Farrell
+ */
+public class SearchBoard {
+    private static final int NOBODY = -1;
+
+    /** The shape of the board. */
+    public final BoardGeometry geometry;
+    /** The position being searched. Evaluators may look at it, but not change it. */
+    final FillerModel model;
+    private final int[] origins = new int[2];
+    /** Which player owns each hex, or NOBODY. */
+    private final int[] owner;
+    private final int[][] territory;
+    private final int[] territorySize = new int[2];
+    private final int[][] frontier;
+    private final int[] frontierSize = new int[2];
+    private final boolean[][] onFrontier;
+    /** The xor of the Zobrist hex keys of each player's territory. */
+    private final long[] hexKeys = new long[2];
+    private final int[] colour = new int[2];
+    /** Whether each player's territory in the model is their colour. */
+    private final boolean[] painted = new boolean[2];
+    /** The Zobrist hash of the position, as if the territories were painted. */
+    private long hash;
+    /** Stack for flood fills. */
+    private final int[] stack;
+    /**
+     * What is needed to take back each move that has been made: the player,
+     * the colour they had, and the lengths of their lists before the move.
+     */
+    private int[] undo = new int[4 * 16];
+    private long[] undoKeys = new long[16];
+    private int moves;
+
+    public SearchBoard(BoardGeometry geometry) {
+        this.geometry = geometry;
+        int size = geometry.getSize();
+        model = new FillerModel(geometry);
+        owner = new int[size];
+        territory = new int[2][size];
+        frontier = new int[2][size];
+        onFrontier = new boolean[2][size];
+        stack = new int[size];
+    }
+
+    /**
+     * Set this board up to be the same as <code>position</code>, forgetting
+     * any moves that have been made.
+     */
+    public void setPosition(FillerModel position, int[] origins) {
+        if (position.getGeometry() != geometry) throw new IllegalArgumentException("different board shapes");
+        model.setPieces(position.pieces);
+        this.origins[0] = origins[0];
+        this.origins[1] = origins[1];
+        Arrays.fill(owner, NOBODY);
+        moves = 0;
+        for (int p=0; p<2; p++) {
+            territorySize[p] = 0;
+            frontierSize[p] = 0;
+            hexKeys[p] = 0L;
+            Arrays.fill(onFrontier[p], false);
+        }
+        // if we are both the same colour and joined, player 0 only has their origin
+        owner[origins[0]] = 0;
+        colour[1] = model.pieces[origins[1]];
+        take(1, origins[1], colour[1]);
+        colour[0] = model.pieces[origins[0]];
+        owner[origins[0]] = NOBODY;
+        take(0, origins[0], colour[0]);
+        painted[0] = painted[1] = true;
+        hash = Zobrist.hash(model);
+    }
+
+    /** @return the position on this board. Do not change it. */
+    public FillerModel getModel() {
+        for (int p=0; p<2; p++) {
+            if (painted[p]) continue;
+            int[] pieces = model.pieces;
+            int[] ts = territory[p];
+            int c = colour[p];
+            for (int k=0; k<territorySize[p]; k++) pieces[ts[k]] = c;
+            painted[p] = true;
+        }
+        return model;
+    }
+
+    /** @return the colour of hex i. */
+    public int getPiece(int i) {
+        return (owner[i] == NOBODY) ? model.pieces[i] : colour[owner[i]];
+    }
+
+    public int getScore(int player) { return territorySize[player]; }
+
+    public int getColour(int player) { return colour[player]; }
+
+    /** @return the Zobrist hash of the colours of the hexes. */
+    public long getHash() { return hash; }
+
+    /** @return the number of moves which have been made and not taken back. */
+    public int getMovesMade() { return moves; }
+
+    public int getOrigin(int player) { return origins[player]; }
+
+    /** @return whether somebody owns hex i. */
+    public boolean isOwned(int i) { return owner[i] != NOBODY; }
+
+    /**
+     * @return the number of hexes on the player's frontier. Some of them may
+     * have been taken by somebody since they were put there.
+     */
+    public int getFrontierSize(int player) { return frontierSize[player]; }
+
+    /** @return hex k of the player's frontier. */
+    public int getFrontier(int player, int k) { return frontier[player][k]; }
+
+    /** @return the set of colours of the hexes next to the player's territory that nobody owns. */
+    public int frontierColours(int player) {
+        int[] pieces = model.pieces;
+        int[] edge = frontier[player];
+        int result = 0;
+        for (int k=0; k<frontierSize[player]; k++) {
+            int p = edge[k];
+            if (owner[p] == NOBODY) result |= 1 << pieces[p];
+        }
+        return result;
+    }
+
+    /**
+     * @return the set of colours which <code>player</code> could usefully
+     * choose: all except their own colour and their opponent's.
+     */
+    public int legalMoves(int player) {
+        int all = -1 >>> (32 - geometry.getNumColours());
+        return all & ~(1 << colour[0]) & ~(1 << colour[1]);
+    }
+
+    /** @return whether one of the players has won, or there is nothing left to take. */
+    public boolean isOver() {
+        int toWin = geometry.getPointsToWin();
+        return territorySize[0] >= toWin || territorySize[1] >= toWin ||
+            territorySize[0] + territorySize[1] == geometry.getNumValid();
+    }
+
+    /**
+     * <code>player</code> changes the colour of their territory to
+     * <code>c</code>, taking over any hexes of that colour next to it.
+     * @return the player's new score.
+     */
+    public int makeMove(int player, int c) {
+        if (4 * moves == undo.length) {
+            undo = Arrays.copyOf(undo, 2 * undo.length);
+            undoKeys = Arrays.copyOf(undoKeys, 2 * undoKeys.length);
+        }
+        int oldColour = colour[player];
+        undo[4*moves] = player;
+        undo[4*moves+1] = oldColour;
+        undo[4*moves+2] = territorySize[player];
+        undo[4*moves+3] = frontierSize[player];
+        undoKeys[moves] = hexKeys[player];
+        moves++;
+        recolour(player, oldColour, c);
+        int[] pieces = model.pieces;
+        int[] edge = frontier[player];
+        // the frontier may grow while we go through it, but new hexes are never this colour
+        for (int k=0; k<frontierSize[player]; k++) {
+            int p = edge[k];
+            if (owner[p] == NOBODY && pieces[p] == c) take(player, p, c);
+        }
+        return territorySize[player];
+    }
+
+    /** Take back the last move which was made. */
+    public void unmakeMove() {
+        moves--;
+        int player = undo[4*moves];
+        int oldColour = undo[4*moves+1];
+        int oldTerritory = undo[4*moves+2];
+        int oldFrontier = undo[4*moves+3];
+        int[] ts = territory[player];
+        int[] pieces = model.pieces;
+        int c = colour[player];
+        // the hexes taken by the move were the colour chosen, but may have been painted since
+        for (int k=oldTerritory; k<territorySize[player]; k++) {
+            owner[ts[k]] = NOBODY;
+            pieces[ts[k]] = c;
+        }
+        territorySize[player] = oldTerritory;
+        int[] edge = frontier[player];
+        boolean[] on = onFrontier[player];
+        for (int k=oldFrontier; k<frontierSize[player]; k++) on[edge[k]] = false;
+        frontierSize[player] = oldFrontier;
+        hexKeys[player] = undoKeys[moves];
+        recolour(player, colour[player], oldColour);
+    }
+
+    /** Change the colour of a player's territory, but don't paint it yet. */
+    private void recolour(int player, int from, int to) {
+        colour[player] = to;
+        painted[player] = false;
+        hash ^= Zobrist.colourKey(hexKeys[player], from) ^ Zobrist.colourKey(hexKeys[player], to);
+    }
+
+    /**
+     * Add <code>start</code> and all unowned hexes of colour <code>c</code>
+     * joined to it to the player's territory, and put the other unowned
+     * hexes next to them on the player's frontier.
+     */
+    private void take(int player, int start, int c) {
+        int[] pieces = model.pieces;
+        int[] first = geometry.first;
+        int[] adjacent = geometry.adjacent;
+        int[] ts = territory[player];
+        int[] edge = frontier[player];
+        boolean[] on = onFrontier[player];
+        int idx = 0;
+        owner[start] = player;
+        stack[idx++] = start;
+        while (idx > 0) {
+            int p = stack[--idx];
+            ts[territorySize[player]++] = p;
+            hexKeys[player] ^= Zobrist.hexKey(p);
+            for (int k=first[p]; k<first[p+1]; k++) {
+                int q = adjacent[k];
+                if (owner[q] != NOBODY) continue;
+                if (pieces[q] == c) {
+                    owner[q] = player;
+                    stack[idx++] = q;
+                } else if (!on[q]) {
+                    on[q] = true;
+                    edge[frontierSize[player]++] = q;
+                }
+            }
+        }
+    }
+}
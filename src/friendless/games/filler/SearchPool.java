@@ -0,0 +1,79 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * The threads which robots think with. All of the searching in the program
+ * is done here rather than in the JVM's common pool, so it doesn't compete
+ * with anything else using parallel streams, and however many games are
+ * being played at once, no more than this many threads are ever thinking.
+ * <P>
+ * The number of threads is set by the system property filler.search.threads,
+ * and is the number of processors if that isn't set. The pool steals work,
+ * so a search can split itself into tasks and the idle threads will pick
+ * them up.
+ *
+ * @author John Farrell
+ */
+public final class SearchPool {
+    /** The system property which sets the number of threads. */
+    public static final String PROPERTY = "filler.search.threads";
+
+    private static ForkJoinPool pool;
+
+    private SearchPool() { }
+
+    public static synchronized ForkJoinPool get() {
+        if (pool == null) {
+            int threads = Integer.getInteger(PROPERTY, Runtime.getRuntime().availableProcessors());
+            pool = new ForkJoinPool(Math.max(1, threads), new Factory(), null, false);
+        }
+        return pool;
+    }
+
+    /** @return the number of threads which may think at once. */
+    public static int getThreads() { return get().getParallelism(); }
+
+    /**
+     * Do <code>task</code> in the pool and wait for the answer. Parallel
+     * streams used by the task run in the pool as well.
+     */
+    public static <T> T invoke(Supplier<T> task) {
+        return get().submit(task::get).join();
+    }
+
+    /** Do <code>task</code> in the pool and wait for it to finish. */
+    public static void invoke(Runnable task) {
+        get().submit(task).join();
+    }
+
+    /** @return a task to do <code>task</code> in the pool, without waiting for it. */
+    public static ForkJoinTask<?> fork(Runnable task) {
+        return get().submit(task);
+    }
+
+    /** Makes daemon threads with names that show up nicely in a debugger. */
+    private static class Factory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("filler-search-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
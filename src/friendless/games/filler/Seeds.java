@@ -0,0 +1,64 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+import java.util.*;
+
+/**
+ * Where the random numbers come from. Each tournament, game and player gets
+ * its own SplittableRandom, split off from a master which is made from the
+ * seed in the system property filler.seed, or from the time if that isn't
+ * set. Games played at once don't share a generator, so they don't get in
+ * each other's way, and starting again with the same seed plays the same
+ * games again.
+ * <P>
+ * A game is made from a single long, its seed. The board is coloured from
+ * the first generator split off the game's, and each player gets the next
+ * one, so a game can be played again from its seed alone, as long as the
+ * robots don't think for a set time rather than a set number of moves
+ * ahead. Searches which use helper threads, and pondering, depend on how
+ * the threads are scheduled too, so when the games have to come out the
+ * same, which is when filler.seed is set or setReproducible has been
+ * called, searches keep to one thread and robots don't ponder.
+ *
+ * @author John Farrell
+ */
+public final class Seeds {
+    /** The system property which sets the master seed. */
+    public static final String PROPERTY = "filler.seed";
+
+    private static final long masterSeed = Long.getLong(PROPERTY, System.nanoTime() ^ System.currentTimeMillis());
+    private static final SplittableRandom master = new SplittableRandom(masterSeed);
+    private static volatile boolean reproducible = System.getProperty(PROPERTY) != null;
+
+    private Seeds() { }
+
+    /** @return the seed everything else is made from. */
+    public static long getMasterSeed() { return masterSeed; }
+
+    /** @return whether games must come out the same when they are played again from their seeds. */
+    public static boolean isReproducible() { return reproducible; }
+
+    /** Say whether games must come out the same when they are played again from their seeds. */
+    public static void setReproducible(boolean reproducible) { Seeds.reproducible = reproducible; }
+
+    /**
+     * @return a new generator split off the master, for something which
+     * needs its own, like a tournament or a series of games.
+     */
+    public static synchronized SplittableRandom split() {
+        return master.split();
+    }
+}
@@ -0,0 +1,262 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+import java.util.*;
+import java.util.concurrent.*;
+import friendless.games.filler.player.RemotePlayer;
+
+/**
+ * A sequential probability ratio test of whether one robot is better than
+ * another. Rather than playing a fixed number of games, the robots play
+ * until the results are enough to decide between two hypotheses:
+ * <dl>
+ * <dt>H0
+ * <dd>the first robot is rated elo0 points more than the second.
+ * <dt>H1
+ * <dd>the first robot is rated elo1 points more than the second.
+ * </dl>
+ * with elo0 &lt; elo1. If the truth is H0 (or worse), H1 is wrongly
+ * accepted with probability alpha at most, and if it is H1 (or better), H0
+ * is wrongly accepted with probability beta at most. When one robot is
+ * obviously better, that's decided after a few dozen games.
+ * <P>
+ * The test uses the usual normal approximation to the log-likelihood ratio
+ * (LLR) of the game results, where the expected score for each
+ * hypothesis comes from EloRating.expectedScore. The score and its variance
+ * are counted as if there had been half a win, half a draw and half a loss
+ * more than there were. Otherwise a run of wins at the start would look
+ * like certainty.
+ * <P>
+ * Usage: Sprt <i>robot robot</i> [-elo0 <i>n</i>] [-elo1 <i>n</i>]
+ * [-alpha <i>p</i>] [-beta <i>p</i>] [-maxgames <i>n</i>] [-movetime <i>ms</i>]
+ * [-maxmoves <i>n</i>] [-seed <i>n</i>]
+ * <P>
+ * The games are played by a MatchRunner, with the robots taking turns to
+ * start, and the LLR is printed as it goes. The seed is printed at the
+ * start, and giving it with -seed plays the same games again, with the
+ * searches kept to one thread.
+ *
+ * @author John Farrell
+ */
+public class Sprt {
+    /** Not decided yet. */
+    public static final int CONTINUE = 0;
+    /** H0 was accepted: the first robot is not elo1 points better. */
+    public static final int H0 = 1;
+    /** H1 was accepted: the first robot is not only elo0 points better. */
+    public static final int H1 = 2;
+    /** How often the LLR is printed. */
+    private static final int REPORT_EVERY = 10;
+    /** How many games are waiting or being played for each thread. */
+    private static final int QUEUE_PER_THREAD = 2;
+
+    private final double elo0, elo1;
+    private final double lower, upper;
+    private int wins, draws, losses;
+
+    /**
+     * @param alpha the largest probability of accepting H1 if H0 is true.
+     * @param beta the largest probability of accepting H0 if H1 is true.
+     */
+    public Sprt(double elo0, double elo1, double alpha, double beta) {
+        if (!(elo0 < elo1) || alpha <= 0.0 || alpha >= 1.0 || beta <= 0.0 || beta >= 1.0) {
+            throw new IllegalArgumentException("need elo0 < elo1 and 0 < alpha, beta < 1");
+        }
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        lower = Math.log(beta / (1.0 - alpha));
+        upper = Math.log((1.0 - beta) / alpha);
+    }
+
+    /** Count a game from the point of view of the first robot. */
+    public void add(double points) {
+        if (points > 0.5) {
+            wins++;
+        } else if (points < 0.5) {
+            losses++;
+        } else {
+            draws++;
+        }
+    }
+
+    public int getGames() { return wins + draws + losses; }
+
+    public int getWins() { return wins; }
+
+    public int getDraws() { return draws; }
+
+    public int getLosses() { return losses; }
+
+    /** @return H0 or H1 if one of them has been accepted, otherwise CONTINUE. */
+    public int getStatus() {
+        double llr = getLLR();
+        if (llr >= upper) return H1;
+        if (llr <= lower) return H0;
+        return CONTINUE;
+    }
+
+    /** @return the LLR below which H0 is accepted. */
+    public double getLowerBound() { return lower; }
+
+    /** @return the LLR above which H1 is accepted. */
+    public double getUpperBound() { return upper; }
+
+    /** @return the log-likelihood ratio of H1 to H0, given the results so far. */
+    public double getLLR() {
+        int n = getGames();
+        if (n == 0) return 0.0;
+        double s = getScore();
+        double s0 = EloRating.expectedScore(elo0);
+        double s1 = EloRating.expectedScore(elo1);
+        return n * (s1 - s0) * (2.0 * s - s0 - s1) / (2.0 * getVariance());
+    }
+
+    /** @return the average points per game of the first robot, counting the extra half games. */
+    public double getScore() {
+        return (wins + 0.5 * draws + 0.75) / (getGames() + 1.5);
+    }
+
+    /** @return the variance of the points per game, counting the extra half games. */
+    private double getVariance() {
+        double s = getScore();
+        double w = wins + 0.5, d = draws + 0.5, l = losses + 0.5;
+        return (w * (1.0 - s) * (1.0 - s) + d * (0.5 - s) * (0.5 - s) + l * s * s) / (w + d + l);
+    }
+
+    /**
+     * @return how many points more than the second robot the first is
+     * rated, from the results so far, with the ends of a 95% confidence
+     * interval.
+     */
+    public double[] getEloEstimate() {
+        double s = getScore();
+        double margin = 1.96 * Math.sqrt(getVariance() / (getGames() + 1.5));
+        return new double[] {
+            EloRating.ratingDifference(s),
+            EloRating.ratingDifference(Math.max(1e-6, s - margin)),
+            EloRating.ratingDifference(Math.min(1.0 - 1e-6, s + margin))
+        };
+    }
+
+    public String toString() {
+        double[] elo = getEloEstimate();
+        return String.format("%d games: +%d =%d -%d, Elo %+.1f (%+.1f..%+.1f), LLR %.2f (%.2f, %.2f)",
+                getGames(), wins, draws, losses, elo[0], elo[1], elo[2], getLLR(), lower, upper);
+    }
+
+    public static void main(String[] args) {
+        List<String> robots = new ArrayList<>();
+        double elo0 = 0.0, elo1 = 10.0, alpha = 0.05, beta = 0.05;
+        int maxGames = 100000;
+        long moveTime = 0;
+        int maxMoves = 2000;
+        Long seed = null;
+        try {
+            for (int a=0; a<args.length; a++) {
+                String arg = args[a];
+                if (!arg.startsWith("-")) {
+                    robots.add(arg);
+                    continue;
+                }
+                if (a + 1 == args.length) usage();
+                String value = args[++a];
+                switch (arg) {
+                    case "-elo0": elo0 = Double.parseDouble(value); break;
+                    case "-elo1": elo1 = Double.parseDouble(value); break;
+                    case "-alpha": alpha = Double.parseDouble(value); break;
+                    case "-beta": beta = Double.parseDouble(value); break;
+                    case "-maxgames": maxGames = Integer.parseInt(value); break;
+                    case "-movetime": moveTime = Long.parseLong(value); break;
+                    case "-maxmoves": maxMoves = Integer.parseInt(value); break;
+                    case "-seed": seed = Long.parseLong(value); break;
+                    default: usage();
+                }
+            }
+        } catch (NumberFormatException ex) {
+            usage();
+        }
+        if (robots.size() != 2 || maxGames < 1 || maxMoves < 1) usage();
+        Sprt test = null;
+        try {
+            test = new Sprt(elo0, elo1, alpha, beta);
+            for (String name : robots) {
+                FillerPlayer player = MatchRunner.newPlayer(name);
+                if (player.requiresButtons() || player instanceof RemotePlayer) {
+                    throw new IllegalArgumentException(name + " is not a robot");
+                }
+            }
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.exit(1);
+        }
+        if (seed != null) {
+            Seeds.setReproducible(true);
+        } else {
+            seed = Seeds.split().nextLong();
+        }
+        SplittableRandom seeds = new SplittableRandom(seed);
+        MatchRunner runner = new MatchRunner();
+        runner.setMoveTime(moveTime);
+        runner.setMaxMoves(maxMoves);
+        String first = robots.get(0);
+        String second = robots.get(1);
+        System.out.printf("%s v %s: H0 elo %+.1f, H1 elo %+.1f, alpha %.3f, beta %.3f, seed %d%n",
+                first, second, elo0, elo1, alpha, beta, seed);
+        // games are decided in the order they were started, so the answer doesn't depend on the threads
+        Deque<Future<GameResult>> queue = new ArrayDeque<>();
+        int window = QUEUE_PER_THREAD * runner.getThreads();
+        int submitted = 0;
+        long start = System.nanoTime();
+        while (test.getStatus() == CONTINUE && test.getGames() < maxGames) {
+            while (queue.size() < window && submitted < maxGames) {
+                // take turns to start
+                boolean swapped = submitted % 2 == 1;
+                String p0 = swapped ? second : first;
+                String p1 = swapped ? first : second;
+                queue.add(runner.submit(() -> MatchRunner.newPlayer(p0), () -> MatchRunner.newPlayer(p1),
+                        seeds.nextLong()));
+                submitted++;
+            }
+            boolean swapped = test.getGames() % 2 == 1;
+            GameResult result = MatchRunner.get(queue.remove());
+            if (result == null) break;
+            int winner = result.getWinner();
+            test.add((winner < 0) ? 0.5 : (winner == (swapped ? 1 : 0)) ? 1.0 : 0.0);
+            if (test.getGames() % REPORT_EVERY == 0) System.out.println(test);
+        }
+        for (Future<GameResult> game : queue) game.cancel(false);
+        runner.shutdown();
+        if (test.getGames() % REPORT_EVERY != 0) System.out.println(test);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        switch (test.getStatus()) {
+            case H1:
+                System.out.printf("H1 accepted: %s is better than %s by at least %+.1f Elo.%n", first, second, elo0);
+                break;
+            case H0:
+                System.out.printf("H0 accepted: %s is not better than %s by %+.1f Elo.%n", first, second, elo1);
+                break;
+            default:
+                System.out.println("Undecided after " + test.getGames() + " games.");
+        }
+        System.out.printf("%.1fs, %.1f games/s%n", seconds, test.getGames() / seconds);
+    }
+
+    private static void usage() {
+        System.err.println("Usage: Sprt robot robot [-elo0 n] [-elo1 n] [-alpha p] [-beta p] [-maxgames n]");
+        System.err.println("       [-movetime ms] [-maxmoves n] [-seed n]");
+        System.exit(1);
+    }
+}
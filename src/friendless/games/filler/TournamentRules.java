@@ -30,6 +30,10 @@ class TournamentRules {
     FillerPlayer pepperTarget;
     /** Whether the tournament is played once, or until cancelled. */
     boolean continuous;
+    /** Milliseconds robots may take for each move, or 0 for no limit. */
+    int moveTime;
+    /** Whether matches which don't depend on each other are played at once. */
+    boolean parallel;
 
     TournamentRules(int rules) {
         this.rules = rules;
@@ -42,5 +46,17 @@ class TournamentRules {
 
     public boolean isContinuous() { return continuous; }
 
+    public void setMoveTime(int moveTime) {
+        this.moveTime = moveTime;
+    }
+
+    public int getMoveTime() { return moveTime; }
+
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public boolean isParallel() { return parallel; }
+
     public String toString() { return "" + continuous + " " + rules; }
 }
@@ -40,8 +40,11 @@ import java.util.*;
  */
 public class Tournaments {
     private static final String SEP = System.getProperty("line.separator");
-    static Random rng = new Random();
+    /** The tournament's own random numbers, for the draw and the seeds of the matches. */
+    private static SplittableRandom rng;
     private static boolean cancelled;
+    /** Whether matches which don't depend on each other are played at once. */
+    private static boolean parallel;
     private static ResourceBundle resources;
 
     static void setResources(ResourceBundle resources) {
@@ -54,8 +57,12 @@ public class Tournaments {
 
     static void tournament(TournamentRules rules, FillerPanel panel, PlayerWrappers players) {
         cancelled = false;
+        parallel = rules.isParallel();
+        rng = Seeds.split();
         boolean onceOnly = true;
         TournamentResultsPanel.getInstance(resources).newTournament(rules, players);
+        int oldMoveTime = panel.getMoveTime();
+        panel.setMoveTime(rules.getMoveTime());
         while (rules.isContinuous() || onceOnly) {
             onceOnly = false;
             switch (rules.rules) {
@@ -75,6 +82,7 @@ public class Tournaments {
             }
             if (cancelled) break;
         }
+        panel.setMoveTime(oldMoveTime);
     }
 
     static void challenge(FillerPanel panel, PlayerWrappers players) {
@@ -84,7 +92,7 @@ public class Tournaments {
             // interactive players don't get to challenge
             if (p1.getInstance().requiresButtons()) continue;
             PlayerWrapper p2 = getBestOpponent(p1, players);
-            panel.tournamentMatch(new PlayerWrapper[] { p1, p2 });
+            panel.tournamentMatch(new PlayerWrapper[] { p1, p2 }, rng.nextLong());
         }
     }
 
@@ -130,7 +138,7 @@ public class Tournaments {
     }
 
     static void knockout(FillerPanel panel, PlayerWrappers players) {
-        players.sortByRandom();
+        players.sortByRandom(rng);
         int numRealPlayers = players.size();
         int numPlayers = numRealPlayers + (numRealPlayers % 2);
         int[] pis = new int[numPlayers];
@@ -243,8 +251,8 @@ public class Tournaments {
     /**
      * Allocate players to matches using a backtracking system.
      */
-    static List allocateBasho(PlayerWrapper[] players, boolean[][] played, Map<PlayerWrapper, Integer> index,
-            List allocatedPairs, boolean[] allocated) {
+    static List<PlayerWrapper[]> allocateBasho(PlayerWrapper[] players, boolean[][] played,
+            Map<PlayerWrapper, Integer> index, List<PlayerWrapper[]> allocatedPairs, boolean[] allocated) {
         if (allocatedPairs.size() * 2 == players.length) {
             return allocatedPairs;
         } else {
@@ -259,7 +267,7 @@ public class Tournaments {
                     setPlayed(p1, p2, played, index, true);
                     PlayerWrapper[] pair = { p1, p2 };
                     allocatedPairs.add(pair);
-                    List pairs = allocateBasho(players, played, index, allocatedPairs, allocated);
+                    List<PlayerWrapper[]> pairs = allocateBasho(players, played, index, allocatedPairs, allocated);
                     if (pairs != null) {
                         // success
                         return pairs;
@@ -277,8 +285,9 @@ public class Tournaments {
         }
     }
 
-    static List allocateBasho(PlayerWrapper[] players, boolean[][] played, Map<PlayerWrapper, Integer> index) {
-        List allocatedPairs = new ArrayList();
+    static List<PlayerWrapper[]> allocateBasho(PlayerWrapper[] players, boolean[][] played,
+            Map<PlayerWrapper, Integer> index) {
+        List<PlayerWrapper[]> allocatedPairs = new ArrayList<>();
         boolean[] allocated = new boolean[players.length];
         return allocateBasho(players, played, index, allocatedPairs, allocated);
     }
@@ -325,7 +334,7 @@ public class Tournaments {
         for (int i=0; i<openingRounds; i++) {
             if (cancelled) break;
             sortByRatings(ps, wins);
-            List pairs = allocateBasho(ps, played, index);
+            List<PlayerWrapper[]> pairs = allocateBasho(ps, played, index);
             playBashoMatches(panel, pairs, ps, wins);
         }
         for (int i=0; i<closingRounds; i++) {
@@ -334,7 +343,7 @@ public class Tournaments {
             String mesg = resources.getString("filler.string.basholeader");
             mesg = MessageFormat.format(mesg, ps[0].getName(), new Integer(wins[0]));
             TournamentResultsPanel.getInstance(resources).addText(mesg + SEP);
-            List pairs = allocateBasho(ps, played, index);
+            List<PlayerWrapper[]> pairs = allocateBasho(ps, played, index);
             playBashoMatches(panel, pairs, ps, wins);
         }
         PlayerWrapper winner = null;
@@ -356,12 +365,22 @@ public class Tournaments {
         }
     }
 
-    /** Play the given list of matches. */
-    private static void playBashoMatches(FillerPanel panel, List pairs, PlayerWrapper[] players, int[] wins) {
+    /**
+     * Play the given list of matches. Nobody is in more than one of them, so
+     * they can all be played at once.
+     */
+    private static void playBashoMatches(FillerPanel panel, List<PlayerWrapper[]> pairs, PlayerWrapper[] players,
+            int[] wins) {
+        int[][] results = null;
+        if (parallel) {
+            PlayerWrapper[][] ps = pairs.toArray(new PlayerWrapper[pairs.size()][]);
+            results = panel.tournamentMatches(ps, seeds(ps.length));
+        }
         for (int i=0; i<pairs.size(); i++) {
-            if (cancelled) break;
-            PlayerWrapper[] pair = (PlayerWrapper[]) pairs.get(i);
-            int[] scores = panel.tournamentMatch(pair);
+            if (results == null && cancelled) break;
+            PlayerWrapper[] pair = pairs.get(i);
+            int[] scores = (results == null) ? panel.tournamentMatch(pair, rng.nextLong()) : results[i];
+            if (scores == null) break;
             int winner = (scores[0] > scores[1]) ? 0 : 1;
             for (int j=0; j<players.length; j++) {
                 if (players[j] == pair[winner]) {
@@ -384,7 +403,7 @@ public class Tournaments {
         }
         TournamentResultsPanel.getInstance(resources).addText("There are " + numEqual + " players in the tiebreaker." + SEP);
         int[][] schedule = roundRobinMatches(numEqual);
-        List pairs = new ArrayList(schedule.length);
+        List<PlayerWrapper[]> pairs = new ArrayList<>(schedule.length);
         for (int i=0; i<schedule.length; i++) {
             PlayerWrapper[] pair = { players[schedule[i][0]], players[schedule[i][1]] };
             pairs.add(pair);
@@ -421,12 +440,18 @@ public class Tournaments {
     }
 
     /**
+     * Play the matches, which don't depend on each other, so in parallel
+     * tournaments they are all played at once.
      * @param recordResult whether to tell the TournamentResultsPanel what the
      * result of the match was.
      */
     static int[] playTournamentMatches(int[][] indexes, FillerPanel panel, PlayerWrappers players, boolean recordResult) {
         int[] winners = new int[indexes.length];
         for (int i=0; i<winners.length; i++) winners[i] = -1;
+        if (parallel) {
+            playTournamentMatchesAtOnce(indexes, panel, players, recordResult, winners);
+            return winners;
+        }
         for (int i=0; i<indexes.length; i++) {
             int[] opps = indexes[i];
             if (opps[0] < 0) {
@@ -443,7 +468,7 @@ public class Tournaments {
                 opps[1] = t;
             }
             PlayerWrapper[] ps = { players.get(opps[0]), players.get(opps[1]) };
-            int[] scores = panel.tournamentMatch(ps);
+            int[] scores = panel.tournamentMatch(ps, rng.nextLong());
             if (scores[0] > scores[1]) {
                 winners[i] = opps[0];
             } else {
@@ -454,4 +479,46 @@ public class Tournaments {
         }
         return winners;
     }
+
+    private static void playTournamentMatchesAtOnce(int[][] indexes, FillerPanel panel, PlayerWrappers players,
+            boolean recordResult, int[] winners) {
+        List<Integer> matches = new ArrayList<>();
+        for (int i=0; i<indexes.length; i++) {
+            int[] opps = indexes[i];
+            if (opps[0] < 0) {
+                winners[i] = opps[1];
+                continue;
+            } else if (opps[1] < 0) {
+                winners[i] = opps[0];
+                continue;
+            }
+            // randomly swap order
+            if (rng.nextBoolean()) {
+                int t = opps[0];
+                opps[0] = opps[1];
+                opps[1] = t;
+            }
+            matches.add(i);
+        }
+        PlayerWrapper[][] pairs = new PlayerWrapper[matches.size()][];
+        for (int k=0; k<pairs.length; k++) {
+            int[] opps = indexes[matches.get(k)];
+            pairs[k] = new PlayerWrapper[] { players.get(opps[0]), players.get(opps[1]) };
+        }
+        int[][] results = panel.tournamentMatches(pairs, seeds(pairs.length));
+        for (int k=0; k<pairs.length; k++) {
+            int[] scores = results[k];
+            if (scores == null) break;
+            int[] opps = indexes[matches.get(k)];
+            winners[matches.get(k)] = (scores[0] > scores[1]) ? opps[0] : opps[1];
+            if (recordResult) TournamentResultsPanel.getInstance(resources).addMatch(pairs[k], scores);
+        }
+    }
+
+    /** @return seeds for the boards of <code>n</code> matches. */
+    private static long[] seeds(int n) {
+        long[] seeds = new long[n];
+        for (int i=0; i<n; i++) seeds[i] = rng.nextLong();
+        return seeds;
+    }
 }
@@ -0,0 +1,149 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+import java.util.*;
+
+/**
+ * Remembers what searches have found out about positions, so that a
+ * position which is reached by more than one order of moves is only
+ * searched once. Positions are identified by their Zobrist hash.
+ * <P>
+ * The table is a fixed number of entries, each of which is two longs: the
+ * data, and the hash xored with the data. An entry is only believed if the
+ * hash xored with the data gives back the hash being looked for, so if two
+ * threads write the same entry at once and it gets mixed up, it is simply
+ * not found. That means that any number of searches can share a table
+ * without locking. The searches must all be for the same player with the
+ * same evaluator, as the values of positions are only true for them.
+ * <P>
+ * Entries are in buckets of two. When a position is stored, it goes in
+ * the first entry of its bucket if that entry is for the same position, is
+ * from an earlier search, or was not searched as deeply; otherwise it goes
+ * in the second entry, which is always replaced.
+ * <P>
+ * The data is packed into a long as:
+ * <PRE>
+ *   bits  0-31  score
+ *   bits 32-39  depth
+ *   bits 40-41  bound: EXACT, LOWER or UPPER
+ *   bits 42-47  best move + 1, or 0 for none
+ *   bits 48-55  age of the search which stored it
+ * </PRE>
+ *
+ * @author John Farrell
+ */
+public class TranspositionTable {
+    /** The score is the exact value of the position. */
+    public static final int EXACT = 1;
+    /** The value of the position is at least the score. */
+    public static final int LOWER = 2;
+    /** The value of the position is at most the score. */
+    public static final int UPPER = 3;
+    /** The system property which sets the size of tables in megabytes. */
+    public static final String PROPERTY = "filler.tt.megabytes";
+    /** The size of tables in megabytes if the property isn't set. */
+    public static final int DEFAULT_MEGABYTES = 16;
+    private static final int BYTES_PER_ENTRY = 16;
+
+    /** Pairs of longs: hash ^ data, data. */
+    private final long[] table;
+    /** Entries - 1, where the number of entries is a power of 2. */
+    private final int mask;
+    private volatile int age;
+
+    /** Create a table of the size given by the system property. */
+    public TranspositionTable() {
+        this(Integer.getInteger(PROPERTY, DEFAULT_MEGABYTES));
+    }
+
+    /**
+     * Create a table which uses no more than <code>megabytes</code>
+     * megabytes, and at least 1.
+     */
+    public TranspositionTable(int megabytes) {
+        long bytes = Math.max(1, megabytes) * 1024L * 1024L;
+        int entries = (int) Math.min(Long.highestOneBit(bytes / BYTES_PER_ENTRY), 1 << 28);
+        table = new long[2 * entries];
+        mask = entries - 1;
+    }
+
+    /** @return the number of positions the table can hold. */
+    public int getCapacity() { return mask + 1; }
+
+    /**
+     * Start a new search. Entries from older searches are replaced before
+     * entries from this one.
+     */
+    public void newSearch() {
+        age = (age + 1) & 0xFF;
+    }
+
+    /** Forget everything. */
+    public void clear() {
+        Arrays.fill(table, 0L);
+    }
+
+    /** @return the data stored for the position with this hash, or 0 if there is none. */
+    public long probe(long hash) {
+        int i = index(hash);
+        for (int k=0; k<4; k+=2) {
+            long data = table[i+k+1];
+            if ((table[i+k] ^ data) == hash && data != 0L) return data;
+        }
+        return 0L;
+    }
+
+    /**
+     * Remember something about the position with this hash.
+     * @param move the best move found, or -1.
+     */
+    public void store(long hash, int depth, int bound, int score, int move) {
+        int a = age;
+        long data = (score & 0xFFFFFFFFL) |
+            ((long) Math.min(depth, 0xFF) << 32) |
+            ((long) bound << 40) |
+            ((long) (move + 1) << 42) |
+            ((long) a << 48);
+        int i = index(hash);
+        long old = table[i+1];
+        boolean same = (table[i] ^ old) == hash;
+        if (same || old == 0L || age(old) != a || depth(old) <= depth) {
+            // keep the best move from before if we didn't find one this time
+            if (same && move < 0) data |= old & (0x3FL << 42);
+            table[i] = hash ^ data;
+            table[i+1] = data;
+        } else {
+            table[i+2] = hash ^ data;
+            table[i+3] = data;
+        }
+    }
+
+    private int index(long hash) {
+        // two entries of two longs in each bucket
+        return ((int) (hash >>> 32) & mask & ~1) << 1;
+    }
+
+    public static int score(long data) { return (int) data; }
+
+    public static int depth(long data) { return (int) (data >>> 32) & 0xFF; }
+
+    public static int bound(long data) { return (int) (data >>> 40) & 0x3; }
+
+    /** @return the best move, or -1 if none was stored. */
+    public static int move(long data) { return ((int) (data >>> 42) & 0x3F) - 1; }
+
+    public static int age(long data) { return (int) (data >>> 48) & 0xFF; }
+}
@@ -0,0 +1,33 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+/**
+ * Something whose behaviour depends on Parameters which can be changed,
+ * so that the Tuner can try different values. The values are kept by each
+ * instance, so different instances can be playing with different values.
+ *
+ * @author John Farrell
+ */
+public interface Tunable {
+    /** @return the parameters, always in the same order. */
+    Parameter[] getParameters();
+
+    /** @return the value of parameter <code>k</code> of getParameters(). */
+    int getParameter(int k);
+
+    /** Change the value of parameter <code>k</code> of getParameters(). */
+    void setParameter(int k, int value);
+}
@@ -0,0 +1,335 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * Chooses better values for a robot's Parameters by having it play lots of
+ * games against a pool of other robots, without the GUI.
+ * <P>
+ * The method is SPSA (simultaneous perturbation stochastic approximation).
+ * Each step, every parameter is moved up or down at random by the same
+ * fraction of its range, the robot plays a match against the pool with the
+ * values moved one way and another with them moved the other way, and the
+ * parameters are moved towards whichever did better, by an amount which
+ * gets smaller as the tuning goes on but is never more than they were
+ * moved to try them. Both matches are played on the same
+ * boards, from both sides of each board, so that the difference between
+ * them is mostly down to the parameters rather than to luck. SPSA only needs
+ * two matches a step however many parameters there are, which is why it
+ * was chosen rather than something like CMA-ES, which needs many more games
+ * a step to learn the shape of the problem.
+ * <P>
+ * At the end, the value of each parameter is the average of where it was
+ * over the second half of the steps. Where it was from one step to the
+ * next isn't independent, so how sure that average is comes from batch
+ * means: the second half is cut into BATCHES runs of steps, and the 95%
+ * confidence interval is worked out from the averages of the runs, as if
+ * they were independent. That is only rough if the runs are short, so it
+ * needs a good number of steps to mean much. The tuned robot then
+ * plays the robot with the values it started with, over the pool, to show
+ * whether it's actually any better. The values are printed as system
+ * properties which can be given to the program to use them.
+ * <P>
+ * Usage: Tuner <i>robot</i> [-iterations <i>n</i>] [-games <i>n</i>]
+ * [-pool <i>robot,robot,...</i>] [-seed <i>n</i>]
+ * <P>
+ * Games are played all at once by a MatchRunner. The robots are given no
+ * time limit, so that a game takes as long however busy the machine is.
+ * The seed is printed at the start, and giving it with -seed tunes the
+ * same way again, with the searches kept to one thread.
+ *
+ * @author John Farrell
+ */
+public class Tuner {
+    /** The robots played against if no pool is given. */
+    public static final String[] DEFAULT_POOL = { "Isadora", "Basil", "Margaret", "Luigi", "Che", "Cochise" };
+    /** Games which go on this long are decided on the score so far. */
+    private static final int MAX_MOVES = 2000;
+    /** The SPSA step sizes, as fractions of the range of each parameter. */
+    private static final double STEP = 0.1;
+    private static final double PERTURBATION = 0.1;
+    private static final double STEP_DECAY = 0.602;
+    private static final double PERTURBATION_DECAY = 0.101;
+    /** The number of runs of steps the confidence intervals are worked out from. */
+    private static final int BATCHES = 5;
+    /** Student's t for a 95% interval with BATCHES - 1 degrees of freedom. */
+    private static final double T_95 = 2.776;
+
+    private final String robot;
+    private final String[] pool;
+    /** The number of boards played against each robot in the pool in each match. */
+    private final int boards;
+    private final Parameter[] parameters;
+    private final int[] defaults;
+    private final MatchRunner runner = new MatchRunner();
+    private long gamesPlayed;
+
+    /**
+     * @param robot the class name of the robot to tune, without the package.
+     * @param pool the class names of the robots to play against.
+     * @param boards how many boards to play each robot in the pool on, from
+     * both sides, for each match.
+     */
+    public Tuner(String robot, String[] pool, int boards) {
+        this.robot = robot;
+        this.pool = pool.clone();
+        this.boards = boards;
+        FillerPlayer player = MatchRunner.newPlayer(robot);
+        if (!(player instanceof Tunable)) {
+            throw new IllegalArgumentException(robot + " has no parameters to tune");
+        }
+        for (String name : pool) {
+            if (MatchRunner.newPlayer(name).requiresButtons()) throw new IllegalArgumentException(name + " is not a robot");
+        }
+        Tunable tunable = (Tunable) player;
+        parameters = tunable.getParameters();
+        defaults = new int[parameters.length];
+        for (int k=0; k<defaults.length; k++) defaults[k] = tunable.getParameter(k);
+        runner.setMaxMoves(MAX_MOVES);
+    }
+
+    public Parameter[] getParameters() { return parameters.clone(); }
+
+    /** @return the number of games played so far. */
+    public long getGamesPlayed() { return gamesPlayed; }
+
+    /**
+     * Tune the parameters, printing how it's going to <code>out</code>.
+     * @param iterations the number of SPSA steps.
+     * @return the tuned values.
+     */
+    public int[] tune(int iterations, SplittableRandom rng, java.io.PrintStream out) throws InterruptedException {
+        int n = parameters.length;
+        // work in fractions of the range of each parameter, so they all move alike
+        double[] theta = new double[n];
+        for (int k=0; k<n; k++) theta[k] = toFraction(k, defaults[k]);
+        double[][] history = new double[iterations][];
+        double[] plus = new double[n];
+        double[] minus = new double[n];
+        int[] delta = new int[n];
+        double stability = 1.0 + iterations / 10.0;
+        long start = System.nanoTime();
+        for (int it=0; it<iterations; it++) {
+            double a = STEP / Math.pow(it + stability, STEP_DECAY);
+            double c = PERTURBATION / Math.pow(it + 1, PERTURBATION_DECAY);
+            for (int k=0; k<n; k++) {
+                delta[k] = rng.nextBoolean() ? 1 : -1;
+                plus[k] = theta[k] + c * delta[k];
+                minus[k] = theta[k] - c * delta[k];
+            }
+            long seed = rng.nextLong();
+            List<Future<GameResult>> plusGames = submitMatch(toValues(plus), seed);
+            List<Future<GameResult>> minusGames = submitMatch(toValues(minus), seed);
+            double yPlus = average(plusGames);
+            double yMinus = average(minusGames);
+            for (int k=0; k<n; k++) {
+                double g = (yPlus - yMinus) / (2.0 * c * delta[k]);
+                // a few lucky games mustn't throw it right across the range
+                double step = Math.max(-c, Math.min(c, a * g));
+                theta[k] = Math.max(0.0, Math.min(1.0, theta[k] + step));
+            }
+            history[it] = theta.clone();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            out.printf("%d: %.3f vs %.3f -> %s (%.1f games/s)%n", it + 1, yPlus, yMinus,
+                    Arrays.toString(toValues(theta)), gamesPlayed / seconds);
+        }
+        // average the second half of the steps, when it should have settled down
+        int from = iterations / 2;
+        int count = iterations - from;
+        int[] tuned = new int[n];
+        for (int k=0; k<n; k++) {
+            double sum = 0.0;
+            for (int it=from; it<iterations; it++) sum += toValue(k, history[it][k]);
+            double mean = sum / count;
+            Parameter p = parameters[k];
+            tuned[k] = p.clamp((int) Math.round(mean));
+            if (count < BATCHES) {
+                out.printf("-D%s=%d   (default %d, too few steps for an interval)%n", p.getProperty(), tuned[k],
+                        defaults[k]);
+                continue;
+            }
+            // the steps left over after the last whole batch are in the mean but not the batches
+            int size = count / BATCHES;
+            double sumSq = 0.0;
+            double batchSum = 0.0;
+            for (int b=0; b<BATCHES; b++) {
+                double batch = 0.0;
+                for (int it=from+b*size; it<from+(b+1)*size; it++) batch += toValue(k, history[it][k]);
+                batch /= size;
+                batchSum += batch;
+                sumSq += batch * batch;
+            }
+            double batchMean = batchSum / BATCHES;
+            double variance = Math.max(0.0, (sumSq - BATCHES * batchMean * batchMean) / (BATCHES - 1));
+            double half = T_95 * Math.sqrt(variance / BATCHES);
+            out.printf("-D%s=%d   (default %d, 95%% confidence %d..%d)%n", p.getProperty(), tuned[k], defaults[k],
+                    p.clamp((int) Math.floor(mean - half)), p.clamp((int) Math.ceil(mean + half)));
+        }
+        return tuned;
+    }
+
+    /**
+     * Play the robot with <code>values</code> against the robot with the
+     * values it started with, on the same boards against the same pool.
+     * @return the average difference in points per game, and the size of
+     * its 95% confidence interval.
+     */
+    public double[] compare(int[] values, int matches, SplittableRandom rng) throws InterruptedException {
+        int games = 0;
+        double sum = 0.0, sumSq = 0.0;
+        for (int m=0; m<matches; m++) {
+            long seed = rng.nextLong();
+            List<Future<GameResult>> tuned = submitMatch(values, seed);
+            List<Future<GameResult>> original = submitMatch(defaults, seed);
+            // the same board, side and opponent are at the same place in each list
+            for (int g=0; g<tuned.size(); g++) {
+                double d = points(tuned, g) - points(original, g);
+                sum += d;
+                sumSq += d * d;
+                games++;
+            }
+        }
+        double mean = sum / games;
+        double variance = Math.max(0.0, sumSq / games - mean * mean) / Math.max(1, games - 1);
+        return new double[] { mean, 1.96 * Math.sqrt(variance) };
+    }
+
+    /**
+     * Start the games of one match: the robot with <code>values</code>
+     * against each robot in the pool, from both sides of boards made from
+     * <code>seed</code>. The robot is player 0 in the even numbered games
+     * and player 1 in the odd numbered ones.
+     */
+    private List<Future<GameResult>> submitMatch(int[] values, long seed) {
+        List<Future<GameResult>> games = new ArrayList<>();
+        SplittableRandom boardSeeds = new SplittableRandom(seed);
+        Supplier<FillerPlayer> tuned = () -> {
+            FillerPlayer player = MatchRunner.newPlayer(robot);
+            for (int k=0; k<values.length; k++) ((Tunable) player).setParameter(k, values[k]);
+            return player;
+        };
+        for (int b=0; b<boards; b++) {
+            long board = boardSeeds.nextLong();
+            for (String name : pool) {
+                Supplier<FillerPlayer> opponent = () -> MatchRunner.newPlayer(name);
+                games.add(runner.submit(tuned, opponent, board));
+                games.add(runner.submit(opponent, tuned, board));
+            }
+        }
+        return games;
+    }
+
+    private double average(List<Future<GameResult>> games) throws InterruptedException {
+        double total = 0.0;
+        for (int g=0; g<games.size(); g++) total += points(games, g);
+        return total / games.size();
+    }
+
+    /** @return the points the robot got in game g of a match, 1 for a win and 0.5 for a draw. */
+    private double points(List<Future<GameResult>> games, int g) throws InterruptedException {
+        GameResult result = MatchRunner.get(games.get(g));
+        if (result == null) throw new InterruptedException();
+        gamesPlayed++;
+        int winner = result.getWinner();
+        if (winner < 0) return 0.5;
+        return (winner == g % 2) ? 1.0 : 0.0;
+    }
+
+    private double toFraction(int k, int value) {
+        Parameter p = parameters[k];
+        if (p.getMax() == p.getMin()) return 0.0;
+        return (value - p.getMin()) / (double) (p.getMax() - p.getMin());
+    }
+
+    private double toValue(int k, double fraction) {
+        Parameter p = parameters[k];
+        return p.getMin() + fraction * (p.getMax() - p.getMin());
+    }
+
+    private int[] toValues(double[] fractions) {
+        int[] values = new int[fractions.length];
+        for (int k=0; k<values.length; k++) {
+            values[k] = parameters[k].clamp((int) Math.round(toValue(k, fractions[k])));
+        }
+        return values;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length == 0) usage();
+        String robot = args[0];
+        int iterations = 100;
+        int boards = 4;
+        String[] pool = null;
+        Long seed = null;
+        try {
+            for (int a=1; a<args.length; a+=2) {
+                if (a + 1 == args.length) usage();
+                String value = args[a+1];
+                switch (args[a]) {
+                    case "-iterations": iterations = Integer.parseInt(value); break;
+                    case "-games": boards = Integer.parseInt(value); break;
+                    case "-pool": pool = value.split(","); break;
+                    case "-seed": seed = Long.parseLong(value); break;
+                    default: usage();
+                }
+            }
+        } catch (NumberFormatException ex) {
+            usage();
+        }
+        if (iterations < 1 || boards < 1) usage();
+        if (pool == null) {
+            List<String> names = new ArrayList<>();
+            for (String name : DEFAULT_POOL) {
+                if (!name.equals(robot)) names.add(name);
+            }
+            pool = names.toArray(new String[names.size()]);
+        }
+        Tuner tuner;
+        try {
+            tuner = new Tuner(robot, pool, boards);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.exit(1);
+            return;
+        }
+        if (seed != null) {
+            Seeds.setReproducible(true);
+        } else {
+            seed = Seeds.split().nextLong();
+        }
+        SplittableRandom rng = new SplittableRandom(seed);
+        System.out.println("Tuning " + robot + " against " + Arrays.toString(pool) + ", seed " + seed);
+        for (Parameter p : tuner.getParameters()) System.out.println("  " + p);
+        int[] tuned = tuner.tune(iterations, rng, System.out);
+        double[] diff = tuner.compare(tuned, Math.max(1, iterations / 4), rng);
+        System.out.printf("Tuned values score %+.3f +/- %.3f points a game more than the defaults.%n",
+                diff[0], diff[1]);
+        System.out.println(tuner.getGamesPlayed() + " games played.");
+        if (MonteCarloSearch.getTotalPlayouts() > 0) {
+            System.out.printf("Monte Carlo searches played out %d games, %.0f/s%n", MonteCarloSearch.getTotalPlayouts(),
+                    MonteCarloSearch.getTotalPlayoutsPerSecond());
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: Tuner robot [-iterations n] [-games n] [-pool robot,robot,...] [-seed n]");
+        System.err.println("  -games n is the number of boards played against each robot in the pool per match");
+        System.exit(1);
+    }
+}
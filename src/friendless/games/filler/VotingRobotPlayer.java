@@ -1,9 +1,23 @@
 package friendless.games.filler;
 
+import java.util.*;
+
 /**
  * Created by john on 15/08/15.
  */
 public abstract class VotingRobotPlayer extends RobotPlayer {
+    private int[] votes;
+
+    /** @return an array of no votes for each colour, which is reused every turn. */
+    protected int[] clearVotes() {
+        if (votes == null || votes.length != geometry.getNumColours()) {
+            votes = new int[geometry.getNumColours()];
+        } else {
+            Arrays.fill(votes, 0);
+        }
+        return votes;
+    }
+
     protected int votersChoice(int[] votes) {
         int best = -1;
         int bestVotes = -1;
@@ -0,0 +1,93 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler;
+
+/**
+ * Zobrist hashing of positions. Each hex has a random 64 bit key for each
+ * colour it could be, and the hash of a board is the xor of the keys of all
+ * its hexes. Changing the colour of a hex changes the hash by xoring out the
+ * old key and xoring in the new one, so the hash can be kept up to date as
+ * the game is played.
+ * <P>
+ * The key of hex i in colour c is the key of the hex rotated left by
+ * c * COLOUR_ROTATION bits. Rotation distributes over xor, so the xor of the
+ * keys of a whole territory in colour c is just the xor of the hex keys of
+ * the territory, rotated. That means a player's move changes the hash in
+ * constant time, no matter how big their territory is.
+ * <P>
+ * The keys are not stored, they are computed by scrambling the hex number.
+ * This keeps very large boards small, and means that every computer
+ * calculates the same hash for the same position.
+ *
+ * @author John Farrell
+ */
+public final class Zobrist {
+    /** Odd, so that the rotations for up to 64 colours are all different. */
+    private static final int COLOUR_ROTATION = 7;
+    private static final long GOLDEN = 0x9e3779b97f4a7c15L;
+    /** Xored into the hash when it is the second player's turn. */
+    public static final long SECOND_PLAYER = mix(GOLDEN);
+
+    /** You don't need one of these. */
+    private Zobrist() { }
+
+    /** @return the key of hex i, from which its colour keys are derived. */
+    public static long hexKey(int i) {
+        return mix((i + 1) * GOLDEN);
+    }
+
+    /** @return the key of hex i in colour c. */
+    public static long colourKey(int i, int c) {
+        return Long.rotateLeft(hexKey(i), c * COLOUR_ROTATION);
+    }
+
+    /**
+     * @param hexKeys the xor of the hex keys of some hexes.
+     * @return the xor of the keys of those hexes in colour c.
+     */
+    public static long colourKey(long hexKeys, int c) {
+        return Long.rotateLeft(hexKeys, c * COLOUR_ROTATION);
+    }
+
+    /** @return the key for hex i being owned by somebody. */
+    public static long ownerKey(int i) {
+        return mix(-(i + 1) * GOLDEN);
+    }
+
+    /**
+     * @param ownerKeys the xor of the owner keys of the hexes a player owns.
+     * @return the hash of those hexes being owned by that player.
+     */
+    public static long ownerHash(long ownerKeys, int player) {
+        return Long.rotateLeft(ownerKeys, player);
+    }
+
+    /** @return the hash of the colours of all of the hexes in model. */
+    public static long hash(FillerModel model) {
+        int[] pieces = model.pieces;
+        long h = 0L;
+        for (int i=0; i<pieces.length; i++) {
+            if (pieces[i] >= 0) h ^= colourKey(i, pieces[i]);
+        }
+        return h;
+    }
+
+    /** The finishing step of the SplitMix64 generator. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
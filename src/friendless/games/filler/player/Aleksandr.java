@@ -16,6 +16,8 @@ package friendless.games.filler.player;
 
 import friendless.games.filler.*;
 
+import java.util.*;
+
 /**
  * Aleksandr uses a quite sophisticated algorithm.
  * He starts by expanding as fast as possible, then when he reaches the other
@@ -27,19 +29,28 @@ import friendless.games.filler.*;
 public final class Aleksandr extends RobotPlayer {
     enum Phase { NOT_TOUCHING, SHARED_BORDER, END_GAME }
 
+    private static final int[] TARGETS = {
+            FillerModel.makeIndex(FillerSettings.COLUMNS/4,FillerSettings.ROWS/4),
+            FillerModel.makeIndex(FillerSettings.COLUMNS/4,FillerSettings.ROWS*3/4),
+            FillerModel.makeIndex(FillerSettings.COLUMNS*3/4,FillerSettings.ROWS/4),
+            FillerModel.makeIndex(FillerSettings.COLUMNS*3/4,FillerSettings.ROWS*3/4)
+    };
+
     private Phase phase = Phase.NOT_TOUCHING;
+    private final int[] typeCount = new int[FillerModel.NUM_TYPES];
+    private final int[] corners = new int[4];
 
     public String getName() { return "Aleksandr"; }
 
     public int turn() {
         int attempt = -1;
         int[] counted = space.counted;
-        int[] typeCount = new int[FillerModel.NUM_TYPES];
+        Arrays.fill(typeCount, 0);
         for (int c : counted) typeCount[c]++;
         if (phase == Phase.NOT_TOUCHING && typeCount[FillerModel.SHARED_BORDER] > 0) {
             phase = Phase.SHARED_BORDER;
         }
-        if (phase == Phase.SHARED_BORDER && (realScore >= FillerSettings.POINTS_TO_WIN || typeCount[FillerModel.SHARED_BORDER] == 0)) {
+        if (phase == Phase.SHARED_BORDER && (realScore >= geometry.getPointsToWin() || typeCount[FillerModel.SHARED_BORDER] == 0)) {
             phase = Phase.END_GAME;
         }
         switch (phase) {
@@ -58,13 +69,7 @@ public final class Aleksandr extends RobotPlayer {
     }
 
     int calcTarget(int[] counted) {
-        int[] corners = new int[4];
-        int[] targets = {
-                FillerModel.makeIndex(FillerSettings.COLUMNS/4,FillerSettings.ROWS/4),
-                FillerModel.makeIndex(FillerSettings.COLUMNS/4,FillerSettings.ROWS*3/4),
-                FillerModel.makeIndex(FillerSettings.COLUMNS*3/4,FillerSettings.ROWS/4),
-                FillerModel.makeIndex(FillerSettings.COLUMNS*3/4,FillerSettings.ROWS*3/4)
-        };
+        Arrays.fill(corners, 0);
         for (int i=0; i<counted.length; i++) {
             if (counted[i] == FillerModel.FREE) {
                 int x = getX(i);
@@ -82,7 +87,7 @@ public final class Aleksandr extends RobotPlayer {
                 fave = i;
             }
         }
-        return targets[fave];
+        return TARGETS[fave];
     }
 
     public String getIcon() { return "blueAlien.gif"; }
@@ -2,8 +2,6 @@ package friendless.games.filler.player;
 
 import friendless.games.filler.*;
 
-import java.util.BitSet;
-
 /**
  * Created by john on 4/09/15.
  */
@@ -44,24 +42,18 @@ public class Blib extends OptimalRobotPlayer {
     }
 
     protected int mostBestGoalColour(int goal) {
-        BitSet bestGoalColours = getBestGoalColours(goal);
-        bestGoalColours.clear(myColour);
-        bestGoalColours.clear(otherPlayerColour);
-        BitSet allowed = (BitSet) NO_COLOURS.clone();
-        allowed.set(FillerModel.BORDER);
-        allowed.set(FillerModel.SHARED_BORDER);
-        int[] count = countSet(allowed);
+        int bestGoalColours = getBestGoalColours(goal) & ~(1 << myColour) & ~(1 << otherPlayerColour);
+        int[] count = countSet(FREE_GAIN_TYPES);
         // choose any of the best colours that get us to the goal quickest.
-        BitSet favourites = null;
+        int favourites = 0;
         int best = 0;
-        for (int i=0; i<FillerSettings.NUM_COLOURS; i++) {
-            if (count[i] <= 0 || !bestGoalColours.get(i)) continue;
+        for (int i=0; i<count.length; i++) {
+            if (count[i] <= 0 || (bestGoalColours & (1 << i)) == 0) continue;
             if (count[i] > best) {
-                favourites = (BitSet) NO_COLOURS.clone();
-                favourites.set(i);
+                favourites = 1 << i;
                 best = count[i];
             } else if (count[i] == best) {
-                favourites.set(i);
+                favourites |= 1 << i;
             }
         }
         return chooseRandom(favourites);
@@ -19,7 +19,7 @@ public class Chesterton extends VotingRobotPlayer {
     public int turn() {
         int attempt = mostIfWinTurn();
         if (attempt >= 0) return attempt;
-        int[] votes = new int[FillerSettings.NUM_COLOURS];
+        int[] votes = clearVotes();
         addVote(votes, furthestBorderTurn());
         addVote(votes, smartMostTurn());
         addVote(votes, expandTurn());
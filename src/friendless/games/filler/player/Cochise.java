@@ -18,16 +18,26 @@ import friendless.games.filler.*;
 
 /**
  * Cochise expands aggressively towards the opponent's origin.
- * When he gets to 400 points, he starts playing like Che.
+ * When he gets to 400 points (or whatever cochise.phase is), he starts
+ * playing like Che.
  *
  * @author John Farrell
  */
-public class Cochise extends RobotPlayer {
+public class Cochise extends RobotPlayer implements Tunable {
+    /**
+     * How many points he gets before he stops expanding, on the standard
+     * board. On other boards it is scaled to the same share of the points
+     * needed to win.
+     */
+    public static final Parameter PHASE = new Parameter("cochise.phase", 400, 0, FillerSettings.POINTS_TO_WIN);
+
+    private int phase = PHASE.getValue();
+
     public String getName() { return "Cochise"; }
 
     public int turn() {
         int attempt;
-        if (score < 400) {
+        if (score < scalePoints(phase)) {
             attempt = expandTurn();
         } else {
             attempt = furthestBorderTurn();
@@ -36,4 +46,10 @@ public class Cochise extends RobotPlayer {
         if (attempt < 0) attempt = mostTurn();
         return attempt;
     }
+
+    public Parameter[] getParameters() { return new Parameter[] { PHASE }; }
+
+    public int getParameter(int k) { return phase; }
+
+    public void setParameter(int k, int value) { phase = PHASE.clamp(value); }
 }
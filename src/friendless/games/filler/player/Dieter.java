@@ -30,9 +30,7 @@ public class Dieter extends OptimalRobotPlayer {
     public String getName() { return "Dieter"; }
 
     public int turn() {
-        BitSet colours = getBestGoalColours(GOAL);
-        colours.clear(myColour);
-        colours.clear(otherPlayerColour);
+        int colours = getBestGoalColours(GOAL) & ~(1 << myColour) & ~(1 << otherPlayerColour);
         int attempt = chooseRandom(colours);
         if (attempt < 0) attempt = smartMostTurn();
         return attempt;
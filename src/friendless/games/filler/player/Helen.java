@@ -2,6 +2,8 @@ package friendless.games.filler.player;
 
 import friendless.games.filler.DistanceEvaluator;
 import friendless.games.filler.LookaheadRobotPlayer;
+import friendless.games.filler.Parameter;
+import friendless.games.filler.Tunable;
 
 /**
  * Helen calculates the distances to all points she could possibly capture, subtracts the distances to all points
@@ -10,7 +12,9 @@ import friendless.games.filler.LookaheadRobotPlayer;
  * Created by john on 15/08/15.
  */
 @SuppressWarnings("unused")
-public class Helen extends LookaheadRobotPlayer {
+public class Helen extends LookaheadRobotPlayer implements Tunable {
+    private final DistanceEvaluator evaluator = new DistanceEvaluator();
+
     @Override
     public String getName() {
         return "Helen";
@@ -20,9 +24,17 @@ public class Helen extends LookaheadRobotPlayer {
     public int turn() {
         int c = mostIfWinTurn();
         if (noUndecidedSpaces()) return mostTurn();
-        if (c < 0) c = lookahead(new DistanceEvaluator(), true, true);
+        if (c < 0) c = lookahead(evaluator, true, true);
         return c;
     }
 
+    protected boolean useEndgameSolver() { return true; }
+
     public String getIcon() { return "brainhead.png"; }
+
+    public Parameter[] getParameters() { return evaluator.getParameters(); }
+
+    public int getParameter(int k) { return evaluator.getParameter(k); }
+
+    public void setParameter(int k, int value) { evaluator.setParameter(k, value); }
 }
@@ -30,7 +30,7 @@ public final class Jefferson extends VotingRobotPlayer {
     public int turn() {
         int attempt = mostIfWinTurn();
         if (attempt >= 0) return attempt;
-        int[] votes = new int[FillerSettings.NUM_COLOURS];
+        int[] votes = clearVotes();
         addVote(votes, furthestBorderTurn());
         addVote(votes, mostTurn());
         addVote(votes, expandTurn());
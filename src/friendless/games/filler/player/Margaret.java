@@ -17,20 +17,35 @@ package friendless.games.filler.player;
 import friendless.games.filler.*;
 
 /**
- * Margaret plays like Luigi till she gets 400 points, then plays like Isadora.
+ * Margaret plays like Luigi till she gets 400 points (or whatever
+ * margaret.phase is), then plays like Isadora.
  *
  * @author John Farrell
  */
-public class Margaret extends RobotPlayer {
-    public static final int target = FillerModel.makeIndex(FillerSettings.COLUMNS / 2,FillerSettings.ROWS / 2);
+public class Margaret extends RobotPlayer implements Tunable {
+    /**
+     * How many points she gets before she stops heading for the middle, on
+     * the standard board. On other boards it is scaled to the same share of
+     * the points needed to win.
+     */
+    public static final Parameter PHASE = new Parameter("margaret.phase", 400, 0, FillerSettings.POINTS_TO_WIN);
+
+    private int phase = PHASE.getValue();
 
     public String getName() { return "Margaret"; }
 
     public int turn() {
-        if (score < 400) {
+        if (score < scalePoints(phase)) {
+            int target = geometry.makeIndex(geometry.getColumns() / 2, geometry.getRows() / 2);
             return targetTurn(target);
         } else {
             return mostTurn();
         }
     }
+
+    public Parameter[] getParameters() { return new Parameter[] { PHASE }; }
+
+    public int getParameter(int k) { return phase; }
+
+    public void setParameter(int k, int value) { phase = PHASE.clamp(value); }
 }
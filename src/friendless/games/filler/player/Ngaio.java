@@ -0,0 +1,49 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler.player;
+
+import friendless.games.filler.*;
+
+/**
+ * Ngaio imagines thousands of games played to the end from the current
+ * position, with both players playing like Bronwyn, and chooses the move
+ * which wins most of them.
+ *
+ * @author John Farrell
+ */
+public class Ngaio extends RobotPlayer {
+    /** How long to think about a move if there's no time limit, in milliseconds. */
+    private static final int THINKING_TIME = 200;
+    /** The most games to imagine for a move. */
+    private static final int MAX_PLAYOUTS = 1000000;
+
+    private MonteCarloSearch search;
+
+    public String getName() { return "Ngaio"; }
+
+    public int turn() {
+        int c = mostIfWinTurn();
+        if (c >= 0) return c;
+        if (noUndecidedSpaces()) return mostTurn();
+        if (search == null || search.getGeometry() != geometry) {
+            search = new MonteCarloSearch(geometry, PlayoutPolicy.RANDOM_BORDER);
+        }
+        search.setRandom(rng);
+        Deadline d = deadline.isLimited() ? deadline : Deadline.after(THINKING_TIME);
+        return search.search(model, origins, d, MAX_PLAYOUTS);
+    }
+
+    public String getIcon() { return "robot.png"; }
+}
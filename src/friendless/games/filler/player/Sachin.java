@@ -60,9 +60,7 @@ public class Sachin extends OptimalRobotPlayer {
     }
 
     protected int anyBestGoalColour(int goal) {
-        BitSet colours = getBestGoalColours(goal);
-        colours.clear(myColour);
-        colours.clear(otherPlayerColour);
+        int colours = getBestGoalColours(goal) & ~(1 << myColour) & ~(1 << otherPlayerColour);
         return chooseRandom(colours);
     }
 }
@@ -0,0 +1,52 @@
+//  This program is free software; you can redistribute it and/or modify
+//  it under the terms of the GNU General Public License as published by
+//  the Free Software Foundation; either version 2 of the License, or
+//  (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful,
+//  but WITHOUT ANY WARRANTY; without even the implied warranty of
+//  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//  GNU Library General Public License for more details.
+//
+//  You should have received a copy of the GNU General Public License
+//  along with this program; if not, write to the Free Software
+//  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+package friendless.games.filler.player;
+
+import friendless.games.filler.*;
+
+/**
+ * Tamsin uses the same measure of a position as Helen, but looks several
+ * moves ahead, expecting you to reply with your best move each time. If
+ * she is given a time limit she looks as far ahead as she can in the time.
+ *
+ * @author John Farrell
+ */
+public class Tamsin extends LookaheadRobotPlayer implements Tunable {
+    /** How many moves to look ahead, counting both players' moves. */
+    private static final int DEPTH = 4;
+    /** How far she will look ahead if she is given a time limit. */
+    private static final int MAX_DEPTH = 20;
+
+    private final DistanceEvaluator evaluator = new DistanceEvaluator();
+
+    public String getName() { return "Tamsin"; }
+
+    public int turn() {
+        int c = mostIfWinTurn();
+        if (c >= 0) return c;
+        if (noUndecidedSpaces()) return mostTurn();
+        return search(evaluator, deadline.isLimited() ? MAX_DEPTH : DEPTH, true, true);
+    }
+
+    protected boolean useEndgameSolver() { return true; }
+
+    public String getIcon() { return "brainhead.png"; }
+
+    public Parameter[] getParameters() { return evaluator.getParameters(); }
+
+    public int getParameter(int k) { return evaluator.getParameter(k); }
+
+    public void setParameter(int k, int value) { evaluator.setParameter(k, value); }
+}
@@ -14,14 +14,16 @@
 
 package friendless.games.filler.remote.messages;
 
-import friendless.games.filler.FillerModel;
+import friendless.games.filler.BoardGeometry;
+import friendless.games.filler.CompactBoard;
 import friendless.games.filler.remote.FixedSizeMessage;
 import friendless.games.filler.remote.IsMessageID;
 
 /**
  * A message to send at the start of a new game.  This message contains
- * the board position.  The board position is encoded into 689 bytes, every
+ * the board position.  The board position is encoded into 713 bytes, every
  * byte contains two consecutive colors (except for the last byte).
+ * The encoding is done by CompactBoard.
  *
  * @author Kris Verbeeck
  */
@@ -29,6 +31,9 @@ public class NewGameMessage
     extends FixedSizeMessage
     implements IsMessageID
 {
+    private static final BoardGeometry GEOMETRY = BoardGeometry.STANDARD;
+    private static final int SIZE = (GEOMETRY.getSize() + 1) / 2;
+
     private byte[] _data;
     private int[] _pieces;
 
@@ -39,7 +44,7 @@ public class NewGameMessage
      */
     public NewGameMessage()
     {
-        super(MSGID_GAME_NEW, 713);
+        super(MSGID_GAME_NEW, SIZE);
     }
 
     /**
@@ -48,37 +53,10 @@ public class NewGameMessage
      */
     public NewGameMessage(int[] p)
     {
-        super(MSGID_GAME_NEW, 713);
-        _data = new byte[713];
-        for (int i=0; i<_data.length-1; i++) {
-            _data[i] = encode(p[2*i], p[2*i+1]);
-        }
-        _data[712] = encode(p[1424], 0);
-    }
-
-    /**
-     * Encode two pieces into one byte.
-     */
-    private byte encode(int i1, int i2)
-    {
-        int hi = (i1 == -1 ? 0x0F : i1) << 4;
-        int lo = (i2 == -1 ? 0x0F : i2);
-        System.out.println("Encode "+i1+" and "+i2+" into "+((byte)(hi+lo)));
-        return (byte)(hi + lo);
-    }
-
-    /**
-     * Decode on byte into two pieces.
-     */
-    private int[] decode(byte b)
-    {
-        int i = (int)(b < 0 ? b+256 : b);
-        int hi = i >> 4;
-        int lo = i & 0x0F;
-        hi = (hi == 0x0F ? -1 : hi);
-        lo = (lo == 0x0F ? -1 : lo);
-        System.out.println("Decode "+b+" into "+hi+" and "+lo);
-        return new int[] {hi, lo};
+        super(MSGID_GAME_NEW, SIZE);
+        CompactBoard board = new CompactBoard(GEOMETRY);
+        board.pack(p);
+        _data = board.toBytes();
     }
 
     /**
@@ -87,16 +65,9 @@ public class NewGameMessage
      */
     public void init(byte[] payload)
     {
-        int hilo[];
         _data = (byte[])payload.clone();
-        _pieces = new int[1425];
-        for (int i=0; i<_data.length-1; i++) {
-            hilo = decode(payload[i]);
-            _pieces[2*i] = hilo[0];
-            _pieces[2*i+1] = hilo[1];
-        }
-        hilo = decode(payload[712]);
-        _pieces[1424] = hilo[0];
+        _pieces = new int[GEOMETRY.getSize()];
+        new CompactBoard(GEOMETRY, _data).unpack(_pieces);
     }
     
 